@@ -0,0 +1,58 @@
+package com.nikowis.kalah.ai;
+
+import com.nikowis.kalah.engine.KalahEngine;
+import com.nikowis.kalah.engine.PackedPosition;
+import com.nikowis.kalah.engine.Positions;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to search a position to a fixed depth with an empty transposition table, by the number of threads searching
+ * it together. Dividing the time of {@code parallelism=1} by the time of the others gives the parallel speedup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AlphaBetaSearchBenchmark {
+
+    @Param({"OPENING", "LONG_LAP"})
+    public Positions position;
+
+    @Param({"12"})
+    public int depth;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private KalahAi kalahAi;
+    private long low;
+    private long high;
+
+    @Setup
+    public void setUp() throws IOException {
+        kalahAi = new KalahAi(parallelism, Duration.ofHours(1), depth, 20, parallelism, "", "", SearchAlgorithm.ALPHA_BETA, 0);
+        low = PackedPosition.low(position.board());
+        high = PackedPosition.high(position.board(), KalahEngine.P1, false);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        kalahAi.clearTable();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        kalahAi.shutdown();
+    }
+
+    @Benchmark
+    public SearchResult search() {
+        return kalahAi.bestMove(low, high, depth).join();
+    }
+}
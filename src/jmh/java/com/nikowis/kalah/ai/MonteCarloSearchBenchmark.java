@@ -0,0 +1,38 @@
+package com.nikowis.kalah.ai;
+
+import com.nikowis.kalah.engine.KalahEngine;
+import com.nikowis.kalah.engine.PackedPosition;
+import com.nikowis.kalah.engine.Positions;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Random playouts per second of one thread, from a position to the end of the game.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MonteCarloSearchBenchmark {
+
+    @Param({"OPENING", "LONG_LAP"})
+    public Positions position;
+
+    private final MonteCarloSearch search = new MonteCarloSearch(42);
+    private long low;
+    private long high;
+
+    @Setup
+    public void setUp() {
+        low = PackedPosition.low(position.board());
+        high = PackedPosition.high(position.board(), KalahEngine.P1, false);
+    }
+
+    @Benchmark
+    public int playout() {
+        return search.playout(low, high);
+    }
+}
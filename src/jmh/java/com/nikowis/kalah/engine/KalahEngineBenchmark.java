@@ -0,0 +1,60 @@
+package com.nikowis.kalah.engine;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sowing, end of game detection and the packed move on representative positions.
+ * Every move starts from a copy of the position, {@link #copyBoard()} measures the copy alone.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KalahEngineBenchmark {
+
+    private final KalahEngine engine = KalahEngine.STANDARD;
+
+    @Param
+    public Positions position;
+
+    private int[] start;
+    private int[] board;
+    private long[] packedStart;
+    private long[] packed;
+
+    @Setup
+    public void setUp() {
+        start = position.board();
+        board = start.clone();
+        packedStart = new long[]{PackedPosition.low(start), PackedPosition.high(start, KalahEngine.P1, false)};
+        packed = packedStart.clone();
+    }
+
+    @Benchmark
+    public int[] copyBoard() {
+        System.arraycopy(start, 0, board, 0, start.length);
+        return board;
+    }
+
+    @Benchmark
+    public int move() {
+        System.arraycopy(start, 0, board, 0, start.length);
+        return engine.move(board, KalahEngine.P1, position.pit());
+    }
+
+    @Benchmark
+    public boolean isGameOver() {
+        return engine.isGameOver(start);
+    }
+
+    @Benchmark
+    public int packedMove() {
+        packed[0] = packedStart[0];
+        packed[1] = packedStart[1];
+        return PackedPosition.move(packed, 0, position.pit());
+    }
+}
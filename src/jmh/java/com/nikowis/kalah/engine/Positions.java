@@ -0,0 +1,54 @@
+package com.nikowis.kalah.engine;
+
+import java.util.Arrays;
+
+/**
+ * Representative standard positions with P1 to move, shared by the benchmarks.
+ */
+public enum Positions {
+    /**
+     * Initial position, sowing six stones from the third pit.
+     */
+    OPENING(KalahEngine.STANDARD.newBoard(), 2),
+    /**
+     * Fourteen stones go around the board more than once and end in the own house.
+     */
+    LONG_LAP(KalahEngine.STANDARD.newBoard(new int[]{0, 0, 0, 0, 0, 14, 0, 1, 1, 1, 1, 1, 1, 0}), 5),
+    /**
+     * Thirteen stones end in the emptied starting pit and capture the opposite pit.
+     */
+    CAPTURE(KalahEngine.STANDARD.newBoard(new int[]{0, 0, 0, 0, 0, 13, 0, 1, 1, 1, 1, 1, 1, 0}), 5),
+    /**
+     * The last stone of P1 ends in the house and finishes the game.
+     */
+    FINISHING(KalahEngine.STANDARD.newBoard(new int[]{0, 0, 0, 0, 0, 1, 14, 1, 1, 1, 1, 1, 1, 5}), 5);
+
+    private final int[] board;
+    private final int pit;
+
+    Positions(int[] board, int pit) {
+        this.board = board;
+        this.pit = pit;
+    }
+
+    /**
+     * @return engine board including the side totals, must not be modified
+     */
+    public int[] board() {
+        return board;
+    }
+
+    /**
+     * @return copy of the stones per pit, as accepted by the model
+     */
+    public int[] pits() {
+        return Arrays.copyOf(board, KalahEngine.STANDARD.pitCount());
+    }
+
+    /**
+     * @return board index of the pit P1 sows from
+     */
+    public int pit() {
+        return pit;
+    }
+}
@@ -0,0 +1,56 @@
+package com.nikowis.kalah.model;
+
+import com.nikowis.kalah.engine.Positions;
+import com.nikowis.kalah.exception.GameException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves through the model as the service does them: a game restored from its stored pits followed by a validated move.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KalahBenchmark {
+
+    @Param
+    public Positions position;
+
+    private int[] pits;
+    private Kalah opening;
+
+    @Setup
+    public void setUp() {
+        pits = position.pits();
+        opening = new Kalah();
+    }
+
+    @Benchmark
+    public Kalah restore() {
+        return new Kalah(null, pits, Player.P1, false, null);
+    }
+
+    @Benchmark
+    public Kalah restoreAndMove() {
+        Kalah kalah = new Kalah(null, pits, Player.P1, false, null);
+        kalah.move(position.pit() + Kalah.FIRST_PIT_IDX);
+        return kalah;
+    }
+
+    /**
+     * Cost of rejecting a move, validation throws before the game is changed so the same game is reused.
+     */
+    @Benchmark
+    public GameException invalidMove() {
+        try {
+            opening.move(Kalah.P1_HOUSE_IDX + 1);
+            throw new IllegalStateException("Move of the opponent's pit should be rejected");
+        } catch (GameException e) {
+            return e;
+        }
+    }
+}
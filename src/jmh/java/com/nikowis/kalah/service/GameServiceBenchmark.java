@@ -0,0 +1,85 @@
+package com.nikowis.kalah.service;
+
+import com.nikowis.kalah.ai.KalahAi;
+import com.nikowis.kalah.ai.SearchAlgorithm;
+import com.nikowis.kalah.dto.GameStateDto;
+import com.nikowis.kalah.metrics.GameMetrics;
+import com.nikowis.kalah.model.Kalah;
+import com.nikowis.kalah.repository.GameCache;
+import com.nikowis.kalah.repository.KalahRepository;
+import com.nikowis.kalah.repository.SyncGameWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GameServiceImpl#makeAMove(String, Integer)} against an in-memory stub repository, so only the service
+ * overhead is measured: the hand-off to the game's stripe, the cache, the conditional save and the DTO.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GameServiceBenchmark {
+
+    private static final String GAME_ID = "6117e3d3f86b8c0285711b65";
+
+    private GameCache gameCache;
+    private MoveExecutor moveExecutor;
+    private KalahAi kalahAi;
+    private GameService gameService;
+
+    @Setup
+    public void setUp() throws IOException {
+        KalahRepository repository = stubRepository();
+        gameCache = new GameCache(10_000, Duration.ofMinutes(10));
+        moveExecutor = new MoveExecutor(1, 1000);
+        kalahAi = new KalahAi(1, Duration.ofMillis(100), 16, 10, 1, "", "", SearchAlgorithm.ALPHA_BETA, 0);
+        gameService = new GameServiceImpl(repository, gameCache, new SyncGameWriter(repository), moveExecutor, List.of(),
+                new GameMetrics(new SimpleMeterRegistry()), kalahAi, 3, 100);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        moveExecutor.shutdown();
+        kalahAi.shutdown();
+    }
+
+    /**
+     * Stub returning a new game for every read and accepting every write.
+     */
+    private static KalahRepository stubRepository() {
+        return (KalahRepository) Proxy.newProxyInstance(KalahRepository.class.getClassLoader(), new Class<?>[]{KalahRepository.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findById":
+                            Kalah game = new Kalah((String) args[0]);
+                            game.setVersion(0L);
+                            return Optional.of(game);
+                        case "save":
+                            return args[0];
+                        case "replaceIfVersionMatches":
+                            return true;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    /**
+     * Opening move of a game that is not cached, the game is loaded from the stub first.
+     */
+    @Benchmark
+    public GameStateDto makeAMoveUncached() {
+        gameCache.evict(GAME_ID);
+        return gameService.makeAMove(GAME_ID, 3).join();
+    }
+}
@@ -0,0 +1,237 @@
+package com.nikowis.kalah.ai;
+
+import com.nikowis.kalah.engine.KalahEngine;
+import com.nikowis.kalah.engine.PackedPosition;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Iterative deepening alpha-beta search in negamax form over {@link PackedPosition}s.
+ * <p>
+ * Positions of the current line live in one preallocated long array, a child is made by copying the two words of
+ * its parent and moving in place, so a search allocates nothing but its result. A move that earns an extra turn
+ * keeps the side to move, its score is not negated. Moves are ordered by the transposition table move, then moves
+ * ending in the own house, then captures. The score is the difference between the houses of the side to move and
+ * its opponent, which for a finished game is the final result. Positions held by the {@link EndgameDatabase} below
+ * the root are not searched, their final result is looked up.
+ * <p>
+ * Several instances can search the same position in parallel sharing the table (lazy SMP): helpers start one ply
+ * deeper on odd indices and break ties in the move order differently, so they fill the table with entries the
+ * main search has not reached yet. An instance is not thread safe, every searching thread needs its own.
+ */
+final class AlphaBetaSearch {
+
+    static final int MAX_DEPTH = 64;
+
+    private static final KalahEngine ENGINE = KalahEngine.STANDARD;
+    private static final int PLAYER_PITS = ENGINE.playerPits();
+    private static final int CYCLE_LENGTH = ENGINE.pitCount() - 1;
+    private static final int INFINITY = Short.MAX_VALUE;
+    private static final long CLOCK_CHECK_MASK = 1024 - 1;
+    private static final AtomicBoolean NEVER_STOPPED = new AtomicBoolean();
+
+    private static final int HASH_MOVE = 3;
+    private static final int EXTRA_TURN_MOVE = 2;
+    private static final int CAPTURE_MOVE = 1;
+
+    private final TranspositionTable table;
+    private final EndgameDatabase endgame;
+    private final long[] positions = new long[2 * (MAX_DEPTH + 1)];
+    private final int[][] moves = new int[MAX_DEPTH][PLAYER_PITS];
+    private final int[][] priorities = new int[MAX_DEPTH][PLAYER_PITS];
+
+    private long deadline;
+    private AtomicBoolean stopped;
+    private int helper;
+    private boolean enforceDeadline;
+    private boolean aborted;
+    private boolean depthLimited;
+    private long nodes;
+    private int rootMove;
+
+    AlphaBetaSearch(TranspositionTable table) {
+        this(table, EndgameDatabase.NONE);
+    }
+
+    AlphaBetaSearch(TranspositionTable table, EndgameDatabase endgame) {
+        this.table = table;
+        this.endgame = endgame;
+    }
+
+    /**
+     * Deepens the search one ply at a time until {@code maxDepth}, the deadline or the end of the game is reached.
+     * The first iteration always completes, an iteration interrupted by the deadline is discarded.
+     *
+     * @param deadline {@link System#nanoTime()} after which no new nodes are searched
+     */
+    SearchResult search(long low, long high, int maxDepth, long deadline) {
+        return search(low, high, maxDepth, deadline, NEVER_STOPPED, 0);
+    }
+
+    /**
+     * Same as {@link #search(long, long, int, long)} as one of several threads searching the position.
+     *
+     * @param stopped set once the main search is done, helpers then return as soon as they notice
+     * @param helper  {@code 0} for the main search whose result is used, a distinct positive index for every helper
+     */
+    SearchResult search(long low, long high, int maxDepth, long deadline, AtomicBoolean stopped, int helper) {
+        if (PackedPosition.isFinished(high)) {
+            throw new IllegalArgumentException("Can't search a finished game");
+        }
+        this.deadline = deadline;
+        this.stopped = stopped;
+        this.helper = helper;
+        aborted = false;
+        nodes = 0;
+
+        int bestMove = -1;
+        int bestScore = 0;
+        int completedDepth = 0;
+        for (int depth = 1 + (helper & 1); depth <= Math.min(maxDepth, MAX_DEPTH); depth++) {
+            enforceDeadline = depth > 1 || helper > 0;
+            if (enforceDeadline && System.nanoTime() - deadline > 0) {
+                break;
+            }
+            depthLimited = false;
+            positions[0] = low;
+            positions[1] = high;
+            int score = negamax(0, depth, -INFINITY, INFINITY);
+            if (aborted) {
+                break;
+            }
+            bestMove = rootMove;
+            bestScore = score;
+            completedDepth = depth;
+            if (!depthLimited) {
+                break;
+            }
+        }
+        return new SearchResult(bestMove, bestScore, completedDepth, nodes);
+    }
+
+    private int negamax(int ply, int depth, int alpha, int beta) {
+        nodes++;
+        if (enforceDeadline && (nodes & CLOCK_CHECK_MASK) == 0 && (stopped.get() || System.nanoTime() - deadline > 0)) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+        int offset = 2 * ply;
+        long low = positions[offset];
+        long high = positions[offset + 1];
+        int side = PackedPosition.sideToMove(high);
+        if (PackedPosition.isFinished(high)) {
+            return evaluate(low, high, side);
+        }
+        if (ply > 0 && endgame.contains(low, high)) {
+            return endgame.score(low, high);
+        }
+        if (depth == 0) {
+            depthLimited = true;
+            return evaluate(low, high, side);
+        }
+
+        long hash = Zobrist.hash(low, high);
+        long entry = table.probe(hash);
+        int hashMove = -1;
+        if (entry != TranspositionTable.MISS) {
+            hashMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = TranspositionTable.score(entry);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                        || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                    depthLimited = true;
+                    return score;
+                }
+            }
+        }
+
+        int[] plyMoves = moves[ply];
+        int count = orderMoves(ply, low, high, side, hashMove);
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = plyMoves[0];
+        int child = offset + 2;
+        for (int i = 0; i < count; i++) {
+            int pit = plyMoves[i];
+            positions[child] = low;
+            positions[child + 1] = high;
+            PackedPosition.move(positions, child, pit);
+            int score = PackedPosition.sideToMove(positions[child + 1]) == side
+                    ? negamax(ply + 1, depth - 1, alpha, beta)
+                    : -negamax(ply + 1, depth - 1, -beta, -alpha);
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = pit;
+            }
+            if (best > alpha) {
+                alpha = best;
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        int bound = best <= originalAlpha ? TranspositionTable.UPPER_BOUND
+                : best >= beta ? TranspositionTable.LOWER_BOUND
+                : TranspositionTable.EXACT;
+        table.store(hash, depth, bound, bestMove, best);
+        if (ply == 0) {
+            rootMove = bestMove;
+        }
+        return best;
+    }
+
+    /**
+     * Collects the legal moves of the ply, highest priority first and by pit within the same priority, helpers
+     * rotate the pits within the same priority by their index.
+     *
+     * @return number of legal moves
+     */
+    private int orderMoves(int ply, long low, long high, int side, int hashMove) {
+        int[] plyMoves = moves[ply];
+        int[] plyPriorities = priorities[ply];
+        int firstPit = ENGINE.firstPit(side);
+        int house = ENGINE.house(side);
+        int count = 0;
+        for (int pit = firstPit; pit < house; pit++) {
+            int stones = PackedPosition.stones(low, high, pit);
+            if (stones == 0) {
+                continue;
+            }
+            int priority;
+            int last = PackedPosition.lastPit(low, high, pit);
+            if (pit == hashMove) {
+                priority = HASH_MOVE;
+            } else if (last == house) {
+                priority = EXTRA_TURN_MOVE;
+            } else if (last >= firstPit && last < house
+                    && (stones < CYCLE_LENGTH ? PackedPosition.stones(low, high, last) == 0 : stones == CYCLE_LENGTH)) {
+                priority = CAPTURE_MOVE;
+            } else {
+                priority = 0;
+            }
+            priority = priority * PLAYER_PITS + (helper == 0 ? 0 : (pit + helper) % PLAYER_PITS);
+            int i = count++;
+            while (i > 0 && plyPriorities[i - 1] < priority) {
+                plyMoves[i] = plyMoves[i - 1];
+                plyPriorities[i] = plyPriorities[i - 1];
+                i--;
+            }
+            plyMoves[i] = pit;
+            plyPriorities[i] = priority;
+        }
+        return count;
+    }
+
+    private static int evaluate(long low, long high, int side) {
+        return PackedPosition.stones(low, high, ENGINE.house(side))
+                - PackedPosition.stones(low, high, ENGINE.house(KalahEngine.opponent(side)));
+    }
+}
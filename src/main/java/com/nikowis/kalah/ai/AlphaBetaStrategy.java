@@ -0,0 +1,28 @@
+package com.nikowis.kalah.ai;
+
+import com.nikowis.kalah.engine.PackedPosition;
+import com.nikowis.kalah.engine.Strategy;
+
+/**
+ * Alpha-beta search to a fixed depth with its own transposition table, for games played in memory.
+ */
+public class AlphaBetaStrategy implements Strategy {
+
+    private static final int TABLE_SIZE_BITS = 16;
+    private static final long NO_DEADLINE = Long.MAX_VALUE / 2;
+
+    private final AlphaBetaSearch search = new AlphaBetaSearch(new TranspositionTable(TABLE_SIZE_BITS));
+    private final int depth;
+
+    public AlphaBetaStrategy(int depth) {
+        if (depth < 1 || depth > AlphaBetaSearch.MAX_DEPTH) {
+            throw new IllegalArgumentException("Depth must be between 1 and " + AlphaBetaSearch.MAX_DEPTH);
+        }
+        this.depth = depth;
+    }
+
+    @Override
+    public int choosePit(int[] board, int player) {
+        return search.search(PackedPosition.low(board), PackedPosition.high(board, player, false), depth, System.nanoTime() + NO_DEADLINE).getMove();
+    }
+}
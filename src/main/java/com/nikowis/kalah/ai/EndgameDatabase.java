@@ -0,0 +1,92 @@
+package com.nikowis.kalah.ai;
+
+import com.nikowis.kalah.engine.KalahEngine;
+import com.nikowis.kalah.engine.PackedPosition;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Exact results of the positions with few stones left in the pits, written by {@link EndgameDatabaseGenerator} and
+ * read through a read only memory mapped buffer, so the table costs no heap and a lookup allocates nothing.
+ * <p>
+ * Stones in the houses never move again, so the result only depends on the stones in the pits. The file holds one
+ * signed byte per {@link EndgameIndex} position: how many more of the stones left in the pits the side to move ends
+ * up with than its opponent, under perfect play of both.
+ */
+public final class EndgameDatabase {
+
+    static final int MAGIC = 0x4B454442;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 16;
+
+    /**
+     * Database without positions, every lookup misses.
+     */
+    public static final EndgameDatabase NONE = new EndgameDatabase(null, -1);
+
+    private static final KalahEngine ENGINE = KalahEngine.STANDARD;
+    private static final int TOTAL_STONES = ENGINE.totalStones();
+    private static final int P1_HOUSE = ENGINE.house(KalahEngine.P1);
+    private static final int P2_HOUSE = ENGINE.house(KalahEngine.P2);
+
+    private final ByteBuffer values;
+    private final EndgameIndex index;
+    private final int maxStones;
+
+    private EndgameDatabase(ByteBuffer values, int maxStones) {
+        this.values = values;
+        this.maxStones = maxStones;
+        this.index = maxStones < 0 ? null : new EndgameIndex(maxStones);
+    }
+
+    /**
+     * Maps the database file, the mapping stays valid after the channel is closed.
+     */
+    public static EndgameDatabase open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (channel.size() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("Not an endgame database: " + path);
+            }
+            int maxStones = buffer.getInt(8);
+            EndgameDatabase database = new EndgameDatabase(buffer, maxStones);
+            if (channel.size() != HEADER_BYTES + database.index.size()) {
+                throw new IOException("Endgame database is truncated: " + path);
+            }
+            return database;
+        }
+    }
+
+    /**
+     * @return most stones in the pits of a position the database holds, {@code -1} for {@link #NONE}
+     */
+    public int getMaxStones() {
+        return maxStones;
+    }
+
+    /**
+     * @return whether the database holds the result of the position
+     */
+    public boolean contains(long low, long high) {
+        return inPits(low, high) <= maxStones;
+    }
+
+    /**
+     * @return final difference between the houses of the side to move and its opponent under perfect play,
+     * only for positions the database {@link #contains(long, long)}
+     */
+    public int score(long low, long high) {
+        int side = PackedPosition.sideToMove(high);
+        int houses = PackedPosition.stones(low, high, ENGINE.house(side))
+                - PackedPosition.stones(low, high, ENGINE.house(KalahEngine.opponent(side)));
+        return houses + values.get(HEADER_BYTES + (int) index.index(low, high, inPits(low, high)));
+    }
+
+    private static int inPits(long low, long high) {
+        return TOTAL_STONES - PackedPosition.stones(low, high, P1_HOUSE) - PackedPosition.stones(low, high, P2_HOUSE);
+    }
+}
@@ -0,0 +1,155 @@
+package com.nikowis.kalah.ai;
+
+import com.nikowis.kalah.engine.KalahEngine;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Offline generator of the {@link EndgameDatabase} file.
+ * <p>
+ * Positions are solved from the end of the game backwards: every move either drops a stone into a house, leaving
+ * fewer stones in the pits, or moves stones closer to the mover's house without passing it, so a position only
+ * depends on positions with fewer stones or with the same stones nearer to the houses, and no position repeats.
+ * Results are memoized by {@link EndgameIndex}, so every position is solved once. Positions are solved for the
+ * first player to move, a position of the second player is solved as its mirror image.
+ * <pre>
+ * mvn compile exec:java -Dexec.mainClass=com.nikowis.kalah.ai.EndgameDatabaseGenerator -Dexec.args="12 endgame.db"
+ * </pre>
+ */
+public class EndgameDatabaseGenerator {
+
+    public static final int MAX_STONES = 20;
+
+    private static final KalahEngine ENGINE = KalahEngine.STANDARD;
+    private static final int PLAYER_PITS = ENGINE.playerPits();
+    private static final int MOVER_HOUSE = ENGINE.house(KalahEngine.P1);
+    private static final int OPPONENT_HOUSE = ENGINE.house(KalahEngine.P2);
+    private static final byte UNSOLVED = Byte.MIN_VALUE;
+
+    private final EndgameIndex index;
+    private final byte[] values;
+
+    EndgameDatabaseGenerator(int maxStones) {
+        if (maxStones < 0 || maxStones > MAX_STONES) {
+            throw new IllegalArgumentException("Stones must be between 0 and " + MAX_STONES);
+        }
+        index = new EndgameIndex(maxStones);
+        values = new byte[(int) index.size()];
+        Arrays.fill(values, UNSOLVED);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: EndgameDatabaseGenerator <max stones in pits> <file>");
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        generate(Integer.parseInt(args[0]), Path.of(args[1]));
+        System.out.printf("Written %s in %d ms%n", args[1], (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Solves all positions with at most {@code maxStones} in the pits and writes them to the file.
+     */
+    public static void generate(int maxStones, Path file) throws IOException, InterruptedException {
+        EndgameDatabaseGenerator generator = new EndgameDatabaseGenerator(maxStones);
+        // chains of moves that keep the stones in the pits recurse deeply, more than the default stack allows
+        Thread solver = new Thread(null, generator::solveAll, "endgame-generator", 1L << 28);
+        solver.start();
+        solver.join();
+        generator.write(file);
+    }
+
+    void solveAll() {
+        int[] pits = new int[EndgameIndex.PITS];
+        for (int stones = 0; stones <= index.getMaxStones(); stones++) {
+            distribute(pits, 0, stones);
+        }
+    }
+
+    private void distribute(int[] pits, int pit, int left) {
+        if (pit == pits.length - 1) {
+            pits[pit] = left;
+            solve(pits);
+            return;
+        }
+        for (int stones = 0; stones <= left; stones++) {
+            pits[pit] = stones;
+            distribute(pits, pit + 1, left - stones);
+        }
+    }
+
+    /**
+     * @param pits stones per pit, the side to move first
+     * @return stones the side to move gains from the pits over its opponent under perfect play
+     */
+    int solve(int[] pits) {
+        int position = (int) index.index(pits);
+        if (values[position] != UNSOLVED) {
+            return values[position];
+        }
+        int[] board = toBoard(pits);
+        int moverStones = ENGINE.sideStones(board, KalahEngine.P1);
+        int opponentStones = ENGINE.sideStones(board, KalahEngine.P2);
+        int best;
+        if (moverStones == 0 || opponentStones == 0) {
+            best = moverStones - opponentStones;
+        } else {
+            best = Integer.MIN_VALUE;
+            for (int pit = 0; pit < PLAYER_PITS; pit++) {
+                if (board[pit] == 0) {
+                    continue;
+                }
+                int[] child = board.clone();
+                int flags = ENGINE.move(child, KalahEngine.P1, pit);
+                int gained = child[MOVER_HOUSE] - child[OPPONENT_HOUSE];
+                int score;
+                if ((flags & KalahEngine.GAME_OVER) != 0) {
+                    score = gained;
+                } else if ((flags & KalahEngine.EXTRA_TURN) != 0) {
+                    score = gained + solve(pitsOf(child, false));
+                } else {
+                    score = gained - solve(pitsOf(child, true));
+                }
+                best = Math.max(best, score);
+            }
+        }
+        values[position] = (byte) best;
+        return best;
+    }
+
+    private static int[] toBoard(int[] pits) {
+        int[] board = new int[ENGINE.pitCount()];
+        System.arraycopy(pits, 0, board, 0, PLAYER_PITS);
+        System.arraycopy(pits, PLAYER_PITS, board, MOVER_HOUSE + 1, PLAYER_PITS);
+        return ENGINE.newBoard(board);
+    }
+
+    /**
+     * @param mirrored whether the second player moves next, its pits are then listed first
+     */
+    private static int[] pitsOf(int[] board, boolean mirrored) {
+        int[] pits = new int[EndgameIndex.PITS];
+        int moverPits = mirrored ? MOVER_HOUSE + 1 : 0;
+        int opponentPits = mirrored ? 0 : MOVER_HOUSE + 1;
+        System.arraycopy(board, moverPits, pits, 0, PLAYER_PITS);
+        System.arraycopy(board, opponentPits, pits, PLAYER_PITS, PLAYER_PITS);
+        return pits;
+    }
+
+    private void write(Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file);
+             DataOutputStream data = new DataOutputStream(out)) {
+            data.writeInt(EndgameDatabase.MAGIC);
+            data.writeInt(EndgameDatabase.FORMAT_VERSION);
+            data.writeInt(index.getMaxStones());
+            data.writeInt(0);
+            data.write(values);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.nikowis.kalah.ai;
+
+import com.nikowis.kalah.engine.KalahEngine;
+import com.nikowis.kalah.engine.PackedPosition;
+
+/**
+ * Dense numbering of the stone distributions over the twelve pits with at most {@code maxStones} stones in total,
+ * the side to move first. Distributions are numbered by total stones, then in lexicographic order of the pits, so
+ * the index of a position is a sum of precomputed counts per pit.
+ */
+final class EndgameIndex {
+
+    private static final KalahEngine ENGINE = KalahEngine.STANDARD;
+    static final int PITS = 2 * ENGINE.playerPits();
+
+    private final int maxStones;
+    /**
+     * Distributions with fewer stones than the index.
+     */
+    private final long[] offsets;
+    /**
+     * Indexed by pit, stones left for this and the following pits and stones in this pit: distributions of the
+     * stones left in which this pit has fewer stones.
+     */
+    private final long[][][] below;
+
+    EndgameIndex(int maxStones) {
+        this.maxStones = maxStones;
+        offsets = new long[maxStones + 2];
+        for (int stones = 0; stones <= maxStones; stones++) {
+            offsets[stones + 1] = offsets[stones] + distributions(stones, PITS);
+        }
+        below = new long[PITS][maxStones + 1][maxStones + 1];
+        for (int pit = 0; pit < PITS - 1; pit++) {
+            for (int left = 0; left <= maxStones; left++) {
+                for (int stones = 1; stones <= left; stones++) {
+                    below[pit][left][stones] = below[pit][left][stones - 1] + distributions(left - stones + 1, PITS - pit - 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of ways to put the stones into the pits
+     */
+    static long distributions(int stones, int pits) {
+        return binomial(stones + pits - 1, pits - 1);
+    }
+
+    private static long binomial(int n, int k) {
+        long result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+
+    int getMaxStones() {
+        return maxStones;
+    }
+
+    /**
+     * @return number of indexed distributions
+     */
+    long size() {
+        return offsets[maxStones + 1];
+    }
+
+    /**
+     * @param pits stones per pit, the side to move first
+     */
+    long index(int[] pits) {
+        int left = 0;
+        for (int stones : pits) {
+            left += stones;
+        }
+        long index = offsets[left];
+        for (int pit = 0; pit < PITS - 1; pit++) {
+            index += below[pit][left][pits[pit]];
+            left -= pits[pit];
+        }
+        return index;
+    }
+
+    /**
+     * @param inPits stones in the pits of the position, at most {@code maxStones}
+     */
+    long index(long low, long high, int inPits) {
+        int mover = ENGINE.firstPit(PackedPosition.sideToMove(high));
+        int opponent = ENGINE.firstPit(KalahEngine.opponent(PackedPosition.sideToMove(high)));
+        int half = ENGINE.playerPits();
+        int left = inPits;
+        long index = offsets[left];
+        for (int pit = 0; pit < PITS - 1; pit++) {
+            int stones = PackedPosition.stones(low, high, pit < half ? mover + pit : opponent + pit - half);
+            index += below[pit][left][stones];
+            left -= stones;
+        }
+        return index;
+    }
+}
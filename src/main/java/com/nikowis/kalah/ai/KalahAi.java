@@ -0,0 +1,155 @@
+package com.nikowis.kalah.ai;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Computer player searching moves on its own fork join pool, so searches never hold up the move stripes.
+ * All searches share one transposition table, entries are keyed by position and stay valid across games.
+ * With {@code kalah.ai.parallelism} above one a search forks helpers searching the same position (lazy SMP),
+ * which gets deeper within the same time budget when the pool has idle threads. Positions in the optional
+ * {@link EndgameDatabase} are not searched but looked up, and so are the positions of the optional
+ * {@link OpeningBook}, which answers right away without a thread.
+ * <p>
+ * With {@code kalah.ai.algorithm=mcts} moves are chosen by {@link MonteCarloSearch} instead, every thread of a search
+ * grows its own tree and the root moves are merged. Its strength follows the playouts made within the time budget,
+ * so a loaded machine plays weaker moves in the same time rather than slower ones.
+ */
+@Component
+public class KalahAi {
+
+    private final ForkJoinPool pool;
+    private final TranspositionTable table;
+    private final ThreadLocal<AlphaBetaSearch> searches;
+    private final ThreadLocal<MonteCarloSearch> monteCarloSearches;
+    private final OpeningBook book;
+    private final SearchAlgorithm algorithm;
+    private final long maxPlayouts;
+    private final long timeBudgetNanos;
+    private final int maxDepth;
+    private final int parallelism;
+
+    @Autowired
+    public KalahAi(@Value("${kalah.ai.threads}") int threadCount,
+                   @Value("${kalah.ai.time-budget}") Duration timeBudget,
+                   @Value("${kalah.ai.max-depth}") int maxDepth,
+                   @Value("${kalah.ai.table-size-bits}") int tableSizeBits,
+                   @Value("${kalah.ai.parallelism}") int parallelism,
+                   @Value("${kalah.ai.endgame-database}") String endgameDatabase,
+                   @Value("${kalah.ai.opening-book}") String openingBook,
+                   @Value("${kalah.ai.algorithm}") SearchAlgorithm algorithm,
+                   @Value("${kalah.ai.playouts}") long maxPlayouts) throws IOException {
+        int count = threadCount > 0 ? threadCount : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(count);
+        this.table = new TranspositionTable(tableSizeBits);
+        EndgameDatabase endgame = endgameDatabase.isEmpty() ? EndgameDatabase.NONE : EndgameDatabase.open(Path.of(endgameDatabase));
+        this.searches = ThreadLocal.withInitial(() -> new AlphaBetaSearch(table, endgame));
+        this.book = openingBook.isEmpty() ? OpeningBook.NONE : OpeningBook.open(Path.of(openingBook));
+        this.monteCarloSearches = ThreadLocal.withInitial(() -> new MonteCarloSearch(ThreadLocalRandom.current().nextLong()));
+        this.algorithm = algorithm;
+        this.maxPlayouts = maxPlayouts > 0 ? maxPlayouts : Long.MAX_VALUE;
+        this.timeBudgetNanos = timeBudget.toNanos();
+        this.maxDepth = Math.min(maxDepth, AlphaBetaSearch.MAX_DEPTH);
+        this.parallelism = Math.max(1, Math.min(parallelism, count));
+    }
+
+    /**
+     * Searches the best move for the side to move of a {@link com.nikowis.kalah.engine.PackedPosition}.
+     * The time budget starts when the search is submitted, a search that waited for a thread gets what is left of
+     * it, so under load searches get shallower instead of slower. The first ply is always searched.
+     * Positions of the opening book are answered with the book move whatever the depth.
+     *
+     * @param depth maximum depth in plies, capped by {@code kalah.ai.max-depth}, does not limit Monte Carlo searches
+     */
+    public CompletableFuture<SearchResult> bestMove(long low, long high, int depth) {
+        int entry = book.find(low, high);
+        if (entry >= 0) {
+            return CompletableFuture.completedFuture(new SearchResult(book.move(entry), book.score(entry), book.getDepth(), 0));
+        }
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        if (algorithm == SearchAlgorithm.MCTS) {
+            return CompletableFuture.supplyAsync(() -> searchMonteCarlo(low, high, deadline), pool);
+        }
+        int depthLimit = Math.min(depth, maxDepth);
+        return CompletableFuture.supplyAsync(() -> search(low, high, depthLimit, deadline), pool);
+    }
+
+    /**
+     * Splits the playout budget between the threads and merges their root moves once all of them stopped.
+     */
+    private SearchResult searchMonteCarlo(long low, long high, long deadline) {
+        AtomicBoolean stopped = new AtomicBoolean();
+        long playoutsPerThread = maxPlayouts == Long.MAX_VALUE ? maxPlayouts : Math.max(1, maxPlayouts / parallelism);
+        List<ForkJoinTask<MonteCarloSearch.RootStatistics>> helpers = new ArrayList<>(parallelism - 1);
+        for (int i = 1; i < parallelism; i++) {
+            helpers.add(ForkJoinTask.adapt(() -> monteCarloSearches.get().search(low, high, deadline, playoutsPerThread, stopped, false)).fork());
+        }
+        MonteCarloSearch.RootStatistics statistics;
+        try {
+            statistics = monteCarloSearches.get().search(low, high, deadline, playoutsPerThread, stopped, true);
+        } finally {
+            stopped.set(true);
+        }
+        for (ForkJoinTask<MonteCarloSearch.RootStatistics> helper : helpers) {
+            statistics.add(helper.join());
+        }
+        return statistics.toResult();
+    }
+
+    /**
+     * Runs the main search on the calling pool thread and the helpers on forked tasks. Helpers nobody picked up
+     * before the main search finished run inline on join and return right away.
+     */
+    private SearchResult search(long low, long high, int depthLimit, long deadline) {
+        if (parallelism == 1) {
+            return searches.get().search(low, high, depthLimit, deadline);
+        }
+        AtomicBoolean stopped = new AtomicBoolean();
+        List<ForkJoinTask<SearchResult>> helpers = new ArrayList<>(parallelism - 1);
+        for (int i = 1; i < parallelism; i++) {
+            int helper = i;
+            helpers.add(ForkJoinTask.adapt(() -> searches.get().search(low, high, depthLimit, deadline, stopped, helper)).fork());
+        }
+        try {
+            return searches.get().search(low, high, depthLimit, deadline, stopped, 0);
+        } finally {
+            stopped.set(true);
+            helpers.forEach(ForkJoinTask::join);
+        }
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Forgets all searched positions, so the next search starts from scratch.
+     */
+    void clearTable() {
+        table.clear();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,206 @@
+package com.nikowis.kalah.ai;
+
+import com.nikowis.kalah.engine.KalahEngine;
+import com.nikowis.kalah.engine.PackedPosition;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Monte Carlo tree search with the UCT selection rule over {@link PackedPosition}s.
+ * <p>
+ * The tree lives in preallocated primitive arrays indexed by node, children of a node are stored next to each other.
+ * A node is expanded on its second visit, once the arrays are full the search goes on with playouts from the leaves.
+ * Playouts make random legal moves on a two word buffer until the game ends, a win counts one, a draw half. Rewards
+ * of a node are kept from the view of the player who made its move, so extra turns need no special handling.
+ * <p>
+ * Root parallel: every thread grows its own tree from the same position and {@link KalahAi} merges the visits of
+ * the root moves. An instance is not thread safe and is reused by its thread for every search.
+ */
+final class MonteCarloSearch {
+
+    static final int TREE_CAPACITY = 1 << 16;
+
+    private static final KalahEngine ENGINE = KalahEngine.STANDARD;
+    private static final int PLAYER_PITS = ENGINE.playerPits();
+    private static final int P1_HOUSE = ENGINE.house(KalahEngine.P1);
+    private static final int P2_HOUSE = ENGINE.house(KalahEngine.P2);
+    private static final double EXPLORATION = Math.sqrt(2);
+    private static final int MAX_PATH = 512;
+    private static final long CLOCK_CHECK_MASK = 16 - 1;
+
+    private final long[] lows = new long[TREE_CAPACITY];
+    private final long[] highs = new long[TREE_CAPACITY];
+    private final int[] firstChild = new int[TREE_CAPACITY];
+    private final byte[] childCount = new byte[TREE_CAPACITY];
+    private final byte[] moves = new byte[TREE_CAPACITY];
+    private final byte[] movers = new byte[TREE_CAPACITY];
+    private final int[] visits = new int[TREE_CAPACITY];
+    private final double[] rewards = new double[TREE_CAPACITY];
+    private final int[] path = new int[MAX_PATH];
+    private final long[] board = new long[2];
+    private final int[] legal = new int[PLAYER_PITS];
+    private final SplittableRandom random;
+    private int size;
+
+    MonteCarloSearch(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Runs playouts until the deadline, the playout budget or the stop flag. The main search always visits every
+     * root move once, helpers may stop before their first playout.
+     *
+     * @param maxPlayouts playouts after which the search stops
+     * @param main        whether this is the search whose thread waits for the others
+     */
+    RootStatistics search(long low, long high, long deadline, long maxPlayouts, AtomicBoolean stopped, boolean main) {
+        if (PackedPosition.isFinished(high)) {
+            throw new IllegalArgumentException("Can't search a finished game");
+        }
+        size = 1;
+        lows[0] = low;
+        highs[0] = high;
+        childCount[0] = 0;
+        visits[0] = 0;
+        expand(0);
+
+        RootStatistics statistics = new RootStatistics();
+        long playouts = 0;
+        while (playouts < maxPlayouts) {
+            if ((!main || playouts >= childCount[0]) && (playouts & CLOCK_CHECK_MASK) == 0
+                    && (stopped.get() || System.nanoTime() - deadline > 0)) {
+                break;
+            }
+            iterate(statistics, PackedPosition.sideToMove(high));
+            playouts++;
+        }
+        for (int child = firstChild[0]; child < firstChild[0] + childCount[0]; child++) {
+            statistics.visits[moves[child]] += visits[child];
+        }
+        statistics.playouts = playouts;
+        return statistics;
+    }
+
+    private void iterate(RootStatistics statistics, int rootSide) {
+        int node = 0;
+        int length = 0;
+        path[length++] = node;
+        while (childCount[node] > 0 && length < MAX_PATH) {
+            node = select(node);
+            path[length++] = node;
+        }
+        if (visits[node] > 0 && !PackedPosition.isFinished(highs[node]) && size + PLAYER_PITS <= TREE_CAPACITY && length < MAX_PATH) {
+            expand(node);
+            node = firstChild[node] + random.nextInt(childCount[node]);
+            path[length++] = node;
+        }
+
+        int difference = playout(lows[node], highs[node]);
+        double reward = difference > 0 ? 1 : difference < 0 ? 0 : 0.5;
+        visits[0]++;
+        for (int i = 1; i < length; i++) {
+            int visited = path[i];
+            visits[visited]++;
+            rewards[visited] += movers[visited] == KalahEngine.P1 ? reward : 1 - reward;
+        }
+        statistics.differences[moves[path[1]]] += rootSide == KalahEngine.P1 ? difference : -difference;
+        statistics.depth = Math.max(statistics.depth, length - 1);
+    }
+
+    private int select(int parent) {
+        double logVisits = Math.log(visits[parent]);
+        int best = -1;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int child = firstChild[parent]; child < firstChild[parent] + childCount[parent]; child++) {
+            if (visits[child] == 0) {
+                return child;
+            }
+            double value = rewards[child] / visits[child] + EXPLORATION * Math.sqrt(logVisits / visits[child]);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    private void expand(int node) {
+        int side = PackedPosition.sideToMove(highs[node]);
+        int first = size;
+        for (int pit = ENGINE.firstPit(side); pit < ENGINE.house(side); pit++) {
+            if (PackedPosition.stones(lows[node], highs[node], pit) == 0) {
+                continue;
+            }
+            int child = size++;
+            board[0] = lows[node];
+            board[1] = highs[node];
+            PackedPosition.move(board, 0, pit);
+            lows[child] = board[0];
+            highs[child] = board[1];
+            moves[child] = (byte) pit;
+            movers[child] = (byte) side;
+            childCount[child] = 0;
+            visits[child] = 0;
+            rewards[child] = 0;
+        }
+        firstChild[node] = first;
+        childCount[node] = (byte) (size - first);
+    }
+
+    /**
+     * Plays random legal moves until the game ends.
+     *
+     * @return final difference between the houses of the first and the second player
+     */
+    int playout(long low, long high) {
+        board[0] = low;
+        board[1] = high;
+        while (!PackedPosition.isFinished(board[1])) {
+            int side = PackedPosition.sideToMove(board[1]);
+            int count = 0;
+            for (int pit = ENGINE.firstPit(side); pit < ENGINE.house(side); pit++) {
+                if (PackedPosition.stones(board[0], board[1], pit) != 0) {
+                    legal[count++] = pit;
+                }
+            }
+            PackedPosition.move(board, 0, legal[random.nextInt(count)]);
+        }
+        return PackedPosition.stones(board[0], board[1], P1_HOUSE) - PackedPosition.stones(board[0], board[1], P2_HOUSE);
+    }
+
+    /**
+     * Visits and summed final house differences of the root moves, indexed by board index, from the view of the
+     * side to move at the root.
+     */
+    static final class RootStatistics {
+
+        final int[] visits = new int[ENGINE.pitCount()];
+        final long[] differences = new long[ENGINE.pitCount()];
+        long playouts;
+        int depth;
+
+        void add(RootStatistics other) {
+            for (int pit = 0; pit < visits.length; pit++) {
+                visits[pit] += other.visits[pit];
+                differences[pit] += other.differences[pit];
+            }
+            playouts += other.playouts;
+            depth = Math.max(depth, other.depth);
+        }
+
+        /**
+         * @return the most visited move, its average final house difference and the deepest tree
+         */
+        SearchResult toResult() {
+            int best = 0;
+            for (int pit = 1; pit < visits.length; pit++) {
+                if (visits[pit] > visits[best]) {
+                    best = pit;
+                }
+            }
+            int score = visits[best] == 0 ? 0 : (int) Math.round((double) differences[best] / visits[best]);
+            return new SearchResult(best, score, depth, playouts);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.nikowis.kalah.ai;
+
+import com.nikowis.kalah.engine.PackedPosition;
+import com.nikowis.kalah.engine.Strategy;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Monte Carlo tree search with a fixed number of playouts per move, for games played in memory.
+ */
+public class MonteCarloStrategy implements Strategy {
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE / 2;
+    private static final AtomicBoolean NEVER_STOPPED = new AtomicBoolean();
+
+    private final MonteCarloSearch search;
+    private final long playouts;
+
+    public MonteCarloStrategy(long playouts, long seed) {
+        if (playouts < 1) {
+            throw new IllegalArgumentException("Playouts must be positive");
+        }
+        this.search = new MonteCarloSearch(seed);
+        this.playouts = playouts;
+    }
+
+    @Override
+    public int choosePit(int[] board, int player) {
+        return search.search(PackedPosition.low(board), PackedPosition.high(board, player, false),
+                System.nanoTime() + NO_DEADLINE, playouts, NEVER_STOPPED, true).toResult().getMove();
+    }
+}
@@ -0,0 +1,114 @@
+package com.nikowis.kalah.ai;
+
+import com.nikowis.kalah.engine.PackedPosition;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Best moves of the opening positions, written by {@link OpeningBookBuilder} and read through a read only memory
+ * mapped buffer, so the book costs no heap and a lookup allocates nothing.
+ * <p>
+ * The file holds one entry per position reachable from the start within the book's plies, sorted by
+ * {@link PackedPosition#compare(long, long, long, long)} and found by binary search. An entry is the packed position
+ * followed by the best move and its score, searched offline to the book's depth.
+ */
+public final class OpeningBook {
+
+    static final int MAGIC = 0x4B4F424B;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int ENTRY_BYTES = 20;
+
+    /**
+     * Book without positions, every lookup misses.
+     */
+    public static final OpeningBook NONE = new OpeningBook(null, 0, 0, 0);
+
+    private final ByteBuffer entries;
+    private final int size;
+    private final int plies;
+    private final int depth;
+
+    private OpeningBook(ByteBuffer entries, int size, int plies, int depth) {
+        this.entries = entries;
+        this.size = size;
+        this.plies = plies;
+        this.depth = depth;
+    }
+
+    /**
+     * Maps the book file, the mapping stays valid after the channel is closed.
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (channel.size() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            if ((channel.size() - HEADER_BYTES) % ENTRY_BYTES != 0) {
+                throw new IOException("Opening book is truncated: " + path);
+            }
+            return new OpeningBook(buffer, (int) ((channel.size() - HEADER_BYTES) / ENTRY_BYTES), buffer.getInt(8), buffer.getInt(12));
+        }
+    }
+
+    /**
+     * @return entry of the position, {@code -1} if the book does not hold it
+     */
+    public int find(long low, long high) {
+        int from = 0;
+        int to = size - 1;
+        while (from <= to) {
+            int middle = (from + to) >>> 1;
+            int offset = HEADER_BYTES + middle * ENTRY_BYTES;
+            int order = PackedPosition.compare(entries.getLong(offset), entries.getLong(offset + 8), low, high);
+            if (order < 0) {
+                from = middle + 1;
+            } else if (order > 0) {
+                to = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return best move of an entry as a board index
+     */
+    public int move(int entry) {
+        return entries.getShort(HEADER_BYTES + entry * ENTRY_BYTES + 16);
+    }
+
+    /**
+     * @return expected difference between the houses of the side to move and its opponent after the best move
+     */
+    public int score(int entry) {
+        return entries.getShort(HEADER_BYTES + entry * ENTRY_BYTES + 18);
+    }
+
+    /**
+     * @return positions in the book
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return moves played from the start, the book holds every position reached by fewer moves
+     */
+    public int getPlies() {
+        return plies;
+    }
+
+    /**
+     * @return depth every position of the book was searched to
+     */
+    public int getDepth() {
+        return depth;
+    }
+}
@@ -0,0 +1,134 @@
+package com.nikowis.kalah.ai;
+
+import com.nikowis.kalah.engine.KalahEngine;
+import com.nikowis.kalah.engine.PackedPosition;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Offline builder of the {@link OpeningBook} file.
+ * <p>
+ * Every move sequence from the start shorter than the given plies is played out, the positions are sorted and
+ * repeated ones dropped, then every position is searched to the given depth. Searches run in parallel on all cores
+ * and share one transposition table, positions of one opening overlap a lot.
+ * <pre>
+ * mvn compile exec:java -Dexec.mainClass=com.nikowis.kalah.ai.OpeningBookBuilder -Dexec.args="6 12 opening.book"
+ * </pre>
+ */
+public class OpeningBookBuilder {
+
+    public static final int MAX_PLIES = 12;
+
+    private static final KalahEngine ENGINE = KalahEngine.STANDARD;
+    private static final int TABLE_SIZE_BITS = 22;
+    private static final long NO_DEADLINE = Long.MAX_VALUE / 2;
+
+    private final int plies;
+    private long[] positions = new long[1024];
+    private int count;
+
+    OpeningBookBuilder(int plies) {
+        if (plies < 1 || plies > MAX_PLIES) {
+            throw new IllegalArgumentException("Plies must be between 1 and " + MAX_PLIES);
+        }
+        this.plies = plies;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 3) {
+            System.err.println("Usage: OpeningBookBuilder <plies> <search depth> <file>");
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        int size = build(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Path.of(args[2]));
+        System.out.printf("Written %d positions to %s in %d ms%n", size, args[2], (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Searches all positions reached by fewer than {@code plies} moves from the start and writes them to the file.
+     *
+     * @return positions written
+     */
+    public static int build(int plies, int depth, Path file) throws IOException {
+        if (depth < 1 || depth > AlphaBetaSearch.MAX_DEPTH) {
+            throw new IllegalArgumentException("Depth must be between 1 and " + AlphaBetaSearch.MAX_DEPTH);
+        }
+        OpeningBookBuilder builder = new OpeningBookBuilder(plies);
+        long[] unique = builder.collect();
+        int size = unique.length / 2;
+
+        TranspositionTable table = new TranspositionTable(TABLE_SIZE_BITS);
+        ThreadLocal<AlphaBetaSearch> searches = ThreadLocal.withInitial(() -> new AlphaBetaSearch(table));
+        SearchResult[] results = new SearchResult[size];
+        IntStream.range(0, size).parallel().forEach(i ->
+                results[i] = searches.get().search(unique[2 * i], unique[2 * i + 1], depth, System.nanoTime() + NO_DEADLINE));
+
+        try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            data.writeInt(OpeningBook.MAGIC);
+            data.writeInt(OpeningBook.FORMAT_VERSION);
+            data.writeInt(plies);
+            data.writeInt(depth);
+            for (int i = 0; i < size; i++) {
+                data.writeLong(unique[2 * i]);
+                data.writeLong(unique[2 * i + 1]);
+                data.writeShort(results[i].getMove());
+                data.writeShort(results[i].getScore());
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return low and high words of every distinct unfinished position, sorted as the book
+     */
+    long[] collect() {
+        int[] board = ENGINE.newBoard();
+        long[] start = {PackedPosition.low(board), PackedPosition.high(board, KalahEngine.P1, false)};
+        play(start, 0);
+
+        Integer[] order = new Integer[count];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, (a, b) -> PackedPosition.compare(positions[2 * a], positions[2 * a + 1], positions[2 * b], positions[2 * b + 1]));
+        long[] unique = new long[2 * count];
+        int size = 0;
+        for (int i : order) {
+            long low = positions[2 * i];
+            long high = positions[2 * i + 1];
+            if (size == 0 || unique[2 * size - 2] != low || unique[2 * size - 1] != high) {
+                unique[2 * size] = low;
+                unique[2 * size + 1] = high;
+                size++;
+            }
+        }
+        return Arrays.copyOf(unique, 2 * size);
+    }
+
+    private void play(long[] position, int ply) {
+        if (PackedPosition.isFinished(position[1])) {
+            return;
+        }
+        if (2 * count == positions.length) {
+            positions = Arrays.copyOf(positions, positions.length * 2);
+        }
+        positions[2 * count] = position[0];
+        positions[2 * count + 1] = position[1];
+        count++;
+        if (ply + 1 == plies) {
+            return;
+        }
+        int player = PackedPosition.sideToMove(position[1]);
+        for (int pit = ENGINE.firstPit(player); pit < ENGINE.house(player); pit++) {
+            if (PackedPosition.isLegalMove(position[0], position[1], pit)) {
+                long[] child = position.clone();
+                PackedPosition.move(child, 0, pit);
+                play(child, ply + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.nikowis.kalah.ai;
+
+public enum SearchAlgorithm {
+    /**
+     * Iterative deepening alpha-beta with a shared transposition table.
+     */
+    ALPHA_BETA,
+    /**
+     * Monte Carlo tree search with random playouts, the depth limit does not apply.
+     */
+    MCTS
+}
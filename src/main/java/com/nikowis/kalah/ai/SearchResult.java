@@ -0,0 +1,23 @@
+package com.nikowis.kalah.ai;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SearchResult {
+
+    /**
+     * Best move as a board index of {@link com.nikowis.kalah.engine.KalahEngine#STANDARD}.
+     */
+    private final int move;
+    /**
+     * Expected difference between the houses of the side to move and its opponent.
+     */
+    private final int score;
+    /**
+     * Deepest iteration completed within the time budget.
+     */
+    private final int depth;
+    private final long nodes;
+}
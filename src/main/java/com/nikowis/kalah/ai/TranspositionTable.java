@@ -0,0 +1,76 @@
+package com.nikowis.kalah.ai;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size transposition table in two primitive arrays, indexed by the low bits of the Zobrist hash and verified
+ * by the full hash. A store always replaces the previous entry of its slot.
+ * <p>
+ * An entry packs the score, the searched depth, the bound type and the best move into one long, so a probe touches
+ * two array slots and allocates nothing. The table is shared by concurrent searches without locking: the key slot
+ * holds the hash xor the entry, so a key and entry written by different threads fail verification and read as a miss.
+ */
+final class TranspositionTable {
+
+    static final int EXACT = 1;
+    static final int LOWER_BOUND = 2;
+    static final int UPPER_BOUND = 3;
+
+    static final long MISS = 0;
+
+    private final long[] keys;
+    private final long[] entries;
+    private final int mask;
+
+    TranspositionTable(int sizeBits) {
+        if (sizeBits < 1 || sizeBits > 30) {
+            throw new IllegalArgumentException("Table size bits must be between 1 and 30");
+        }
+        keys = new long[1 << sizeBits];
+        entries = new long[1 << sizeBits];
+        mask = (1 << sizeBits) - 1;
+    }
+
+    /**
+     * @return the packed entry stored for the hash or {@link #MISS}
+     */
+    long probe(long hash) {
+        int slot = (int) hash & mask;
+        long entry = entries[slot];
+        return (keys[slot] ^ entry) == hash ? entry : MISS;
+    }
+
+    /**
+     * @param move board index of the best move or {@code -1} if there is none
+     */
+    void store(long hash, int depth, int bound, int move, int score) {
+        long entry = (score & 0xFFFFL)
+                | (long) depth << 16
+                | (long) bound << 24
+                | (long) (move + 1) << 26;
+        int slot = (int) hash & mask;
+        keys[slot] = hash ^ entry;
+        entries[slot] = entry;
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(entries, MISS);
+    }
+
+    static int score(long entry) {
+        return (short) entry;
+    }
+
+    static int depth(long entry) {
+        return (int) (entry >>> 16) & 0xFF;
+    }
+
+    static int bound(long entry) {
+        return (int) (entry >>> 24) & 0x3;
+    }
+
+    static int move(long entry) {
+        return (int) (entry >>> 26) - 1;
+    }
+}
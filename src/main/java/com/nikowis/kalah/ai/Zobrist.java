@@ -0,0 +1,48 @@
+package com.nikowis.kalah.ai;
+
+import com.nikowis.kalah.engine.KalahEngine;
+import com.nikowis.kalah.engine.PackedPosition;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist hashing of {@link PackedPosition}s: a random key per pit and stone count, plus keys for the side to move
+ * and the finished flag, combined with xor.
+ */
+final class Zobrist {
+
+    private static final int PIT_COUNT = KalahEngine.STANDARD.pitCount();
+    private static final int MAX_STONES = KalahEngine.STANDARD.totalStones();
+
+    private static final long[][] PIT_KEYS = new long[PIT_COUNT][MAX_STONES + 1];
+    private static final long SIDE_KEY;
+    private static final long FINISHED_KEY;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_CA1AL);
+        for (long[] pitKeys : PIT_KEYS) {
+            for (int stones = 0; stones < pitKeys.length; stones++) {
+                pitKeys[stones] = random.nextLong();
+            }
+        }
+        SIDE_KEY = random.nextLong();
+        FINISHED_KEY = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    static long hash(long low, long high) {
+        long hash = 0;
+        for (int pit = 0; pit < PIT_COUNT; pit++) {
+            hash ^= PIT_KEYS[pit][PackedPosition.stones(low, high, pit)];
+        }
+        if (PackedPosition.sideToMove(high) == KalahEngine.P2) {
+            hash ^= SIDE_KEY;
+        }
+        if (PackedPosition.isFinished(high)) {
+            hash ^= FINISHED_KEY;
+        }
+        return hash;
+    }
+}
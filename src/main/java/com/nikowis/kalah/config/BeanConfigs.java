@@ -1,12 +1,17 @@
 package com.nikowis.kalah.config;
 
+import com.nikowis.kalah.repository.KalahReadConverter;
+import com.nikowis.kalah.repository.KalahWriteConverter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
 import springfox.documentation.builders.PathSelectors;
 import springfox.documentation.builders.RequestHandlerSelectors;
 import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
 
+import java.util.List;
+
 @Configuration
 public class BeanConfigs {
 
@@ -19,4 +24,9 @@ public class BeanConfigs {
                 .build();
     }
 
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(List.of(new KalahReadConverter(), new KalahWriteConverter()));
+    }
+
 }
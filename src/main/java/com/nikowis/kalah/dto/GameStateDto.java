@@ -1,20 +1,22 @@
 package com.nikowis.kalah.dto;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.nikowis.kalah.model.Player;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.util.Map;
-
 @Getter
 @Setter
 public class GameStateDto {
 
     private String id;
     private String url;
-    private Map<Integer, Integer> status;
+    @JsonSerialize(using = PitsSerializer.class)
+    private int[] status;
     private boolean gameFinished;
     private Player whoseTurn;
     private Player winner;
+    private long moveCount;
+    private Player bot;
 
 }
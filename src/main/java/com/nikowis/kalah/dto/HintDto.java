@@ -0,0 +1,21 @@
+package com.nikowis.kalah.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class HintDto {
+    /**
+     * Suggested pit of the player whose turn it is.
+     */
+    private int pit;
+    /**
+     * Expected difference between the houses of the player whose turn it is and the opponent.
+     */
+    private int score;
+    /**
+     * Depth in plies searched within the time budget.
+     */
+    private int depth;
+}
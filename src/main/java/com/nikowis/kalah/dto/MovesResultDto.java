@@ -0,0 +1,16 @@
+package com.nikowis.kalah.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class MovesResultDto extends GameStateDto {
+
+    /**
+     * Index of the first move that was not valid and was not applied along with the moves after it,
+     * {@code null} when all moves were applied.
+     */
+    private Integer firstInvalidMove;
+
+}
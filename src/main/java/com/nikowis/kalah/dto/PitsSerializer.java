@@ -0,0 +1,36 @@
+package com.nikowis.kalah.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.nikowis.kalah.engine.KalahEngine;
+import com.nikowis.kalah.model.Kalah;
+
+import java.io.IOException;
+
+/**
+ * Serializes the primitive board as a json object keyed by pit number, e.g. {@code {"1":6,"2":6,...}}.
+ */
+public class PitsSerializer extends StdSerializer<int[]> {
+
+    private static final String[] PIT_NAMES = new String[KalahEngine.MAX_PIT_COUNT];
+
+    static {
+        for (int i = 0; i < PIT_NAMES.length; i++) {
+            PIT_NAMES[i] = String.valueOf(i + Kalah.FIRST_PIT_IDX);
+        }
+    }
+
+    public PitsSerializer() {
+        super(int[].class);
+    }
+
+    @Override
+    public void serialize(int[] pits, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject();
+        for (int i = 0; i < pits.length; i++) {
+            gen.writeNumberField(PIT_NAMES[i], pits[i]);
+        }
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,334 @@
+package com.nikowis.kalah.engine;
+
+/**
+ * Allocation free Kalah rules working on a primitive board.
+ * <p>
+ * Board layout: pit number {@code n} is stored under index {@code n - 1}, so for the standard game indices 0-5 are
+ * P1 pits, 6 is the P1 house, 7-12 are P2 pits and 13 is the P2 house. The two slots after the houses keep running
+ * totals of stones left in each player's regular pits, which makes detecting the end of the game O(1).
+ * <p>
+ * Sowing is done in closed form: full laps are added in bulk and only the remainder is distributed pit by pit using
+ * precomputed per player tables. Moves are expected to be legal, see {@link #isLegalMove(int[], int, int)}.
+ * <p>
+ * Every supported variant, 4 to 8 pits per player with 3 to 6 stones each, has one engine whose tables are built
+ * once and shared by all its games, see {@link #of(int, int)}. The rules read the geometry from the tables only,
+ * so a variant costs the same per move as the standard game.
+ */
+public final class KalahEngine {
+
+    public static final int P1 = 0;
+    public static final int P2 = 1;
+    public static final int NO_WINNER = -1;
+
+    /**
+     * Move result flag: the last stone landed in the mover's house.
+     */
+    public static final int EXTRA_TURN = 1;
+    /**
+     * Move result flag: the last stone landed in the mover's empty pit and the opposite pit was captured.
+     */
+    public static final int CAPTURE = 1 << 1;
+    /**
+     * Move result flag: one side ran out of stones and the remaining stones were moved to the houses.
+     */
+    public static final int GAME_OVER = 1 << 2;
+
+    public static final int MIN_PLAYER_PITS = 4;
+    public static final int MAX_PLAYER_PITS = 8;
+    public static final int MIN_INITIAL_STONES = 3;
+    public static final int MAX_INITIAL_STONES = 6;
+    /**
+     * Most pits including houses of any variant.
+     */
+    public static final int MAX_PIT_COUNT = 2 * MAX_PLAYER_PITS + 2;
+
+    private static final KalahEngine[][] VARIANTS = new KalahEngine[MAX_PLAYER_PITS + 1][MAX_INITIAL_STONES + 1];
+
+    static {
+        for (int pits = MIN_PLAYER_PITS; pits <= MAX_PLAYER_PITS; pits++) {
+            for (int stones = MIN_INITIAL_STONES; stones <= MAX_INITIAL_STONES; stones++) {
+                VARIANTS[pits][stones] = new KalahEngine(pits, stones);
+            }
+        }
+    }
+
+    /**
+     * The 6 pit and 6 stone game, the only one {@link PackedPosition} and the computer player support.
+     */
+    public static final KalahEngine STANDARD = of(6, 6);
+
+    private static final int SIDE_WEIGHT_SHIFT = 16;
+    private static final int SIDE_WEIGHT_MASK = (1 << SIDE_WEIGHT_SHIFT) - 1;
+
+    private final int playerPits;
+    private final int initialStones;
+    private final int pitCount;
+    private final int boardSize;
+    private final int cycleLength;
+    private final int[] houses;
+    private final int[] stonesSlots;
+    private final int[] firstPits;
+    /**
+     * Next pit for each player, skipping the opponent's house.
+     */
+    private final int[][] nextPit;
+    /**
+     * Every pit a player sows into, used to add full laps in bulk.
+     */
+    private final int[][] sowingCycle;
+    private final boolean[][] ownRegularPit;
+    private final int[] oppositePit;
+    /**
+     * 1 for P1 regular pits and {@code 1 << 16} for P2 regular pits, lets sowing count stones per side without branching.
+     */
+    private final int[] sideWeight;
+
+    KalahEngine(int playerPits, int initialStones) {
+        this.playerPits = playerPits;
+        this.initialStones = initialStones;
+        this.pitCount = 2 * playerPits + 2;
+        this.boardSize = pitCount + 2;
+        this.cycleLength = pitCount - 1;
+        this.houses = new int[]{playerPits, pitCount - 1};
+        this.stonesSlots = new int[]{pitCount, pitCount + 1};
+        this.firstPits = new int[]{0, playerPits + 1};
+
+        this.nextPit = new int[2][pitCount];
+        this.sowingCycle = new int[2][cycleLength];
+        this.ownRegularPit = new boolean[2][pitCount];
+        for (int player = P1; player <= P2; player++) {
+            int opponentsHouse = houses[opponent(player)];
+            for (int i = 0; i < pitCount; i++) {
+                int next = (i + 1) % pitCount;
+                nextPit[player][i] = next == opponentsHouse ? (next + 1) % pitCount : next;
+                ownRegularPit[player][i] = i >= firstPits[player] && i < houses[player];
+            }
+            for (int i = 0, pit = houses[player]; i < cycleLength; i++) {
+                pit = nextPit[player][pit];
+                sowingCycle[player][i] = pit;
+            }
+        }
+
+        this.oppositePit = new int[pitCount];
+        this.sideWeight = new int[pitCount];
+        for (int i = 0; i < pitCount; i++) {
+            boolean house = i == houses[P1] || i == houses[P2];
+            oppositePit[i] = house ? -1 : pitCount - 2 - i;
+            sideWeight[i] = house ? 0 : (i < houses[P1] ? 1 : 1 << SIDE_WEIGHT_SHIFT);
+        }
+    }
+
+    /**
+     * @return the shared engine of the variant
+     * @throws IllegalArgumentException when the variant is not {@link #isSupported(int, int) supported}
+     */
+    public static KalahEngine of(int playerPits, int initialStones) {
+        if (!isSupported(playerPits, initialStones)) {
+            throw new IllegalArgumentException("Unsupported variant of " + playerPits + " pits and " + initialStones + " stones");
+        }
+        return VARIANTS[playerPits][initialStones];
+    }
+
+    /**
+     * @return whether there is an engine for the given pits per player and initial stones per pit
+     */
+    public static boolean isSupported(int playerPits, int initialStones) {
+        return playerPits >= MIN_PLAYER_PITS && playerPits <= MAX_PLAYER_PITS
+                && initialStones >= MIN_INITIAL_STONES && initialStones <= MAX_INITIAL_STONES;
+    }
+
+    /**
+     * @return a board in the starting position
+     */
+    public int[] newBoard() {
+        int[] board = new int[boardSize];
+        for (int i = 0; i < pitCount; i++) {
+            board[i] = sideWeight[i] == 0 ? 0 : initialStones;
+        }
+        board[stonesSlots[P1]] = playerPits * initialStones;
+        board[stonesSlots[P2]] = playerPits * initialStones;
+        return board;
+    }
+
+    /**
+     * @param pits stones per pit in board order
+     * @return a board holding the given pits with side totals filled in
+     */
+    public int[] newBoard(int[] pits) {
+        if (pits.length != pitCount) {
+            throw new IllegalArgumentException("Expected " + pitCount + " pits but got " + pits.length);
+        }
+        int[] board = new int[boardSize];
+        System.arraycopy(pits, 0, board, 0, pitCount);
+        updateSideTotals(board);
+        return board;
+    }
+
+    /**
+     * Recomputes the side totals after the pits were changed directly.
+     */
+    public void updateSideTotals(int[] board) {
+        int landed = 0;
+        for (int i = 0; i < pitCount; i++) {
+            landed += sideWeight[i] * board[i];
+        }
+        board[stonesSlots[P1]] = landed & SIDE_WEIGHT_MASK;
+        board[stonesSlots[P2]] = landed >>> SIDE_WEIGHT_SHIFT;
+    }
+
+    /**
+     * Makes a legal move in place.
+     *
+     * @param board  board to change
+     * @param player player making the move
+     * @param pit    board index of the selected pit
+     * @return a combination of {@link #EXTRA_TURN}, {@link #CAPTURE} and {@link #GAME_OVER} flags
+     */
+    public int move(int[] board, int player, int pit) {
+        int stones = board[pit];
+        board[pit] = 0;
+        board[stonesSlots[player]] -= stones;
+
+        int laps = stones / cycleLength;
+        int remainder = stones - laps * cycleLength;
+        if (laps > 0) {
+            for (int cyclePit : sowingCycle[player]) {
+                board[cyclePit] += laps;
+            }
+        }
+
+        int[] next = nextPit[player];
+        int last = pit;
+        int landed = 0;
+        for (int i = 0; i < remainder; i++) {
+            last = next[last];
+            board[last]++;
+            landed += sideWeight[last];
+        }
+        board[stonesSlots[P1]] += laps * playerPits + (landed & SIDE_WEIGHT_MASK);
+        board[stonesSlots[P2]] += laps * playerPits + (landed >>> SIDE_WEIGHT_SHIFT);
+
+        int result = 0;
+        if (ownRegularPit[player][last] && board[last] == 1) {
+            int opposite = oppositePit[last];
+            int captured = board[opposite];
+            board[last] = 0;
+            board[opposite] = 0;
+            board[houses[player]] += captured + 1;
+            board[stonesSlots[player]] -= 1;
+            board[stonesSlots[opponent(player)]] -= captured;
+            result |= CAPTURE;
+        }
+
+        if (last == houses[player]) {
+            result |= EXTRA_TURN;
+        }
+
+        if (board[stonesSlots[P1]] == 0 || board[stonesSlots[P2]] == 0) {
+            moveAllStonesToHouses(board);
+            result |= GAME_OVER;
+        }
+        return result;
+    }
+
+    private void moveAllStonesToHouses(int[] board) {
+        for (int player = P1; player <= P2; player++) {
+            for (int i = firstPits[player]; i < houses[player]; i++) {
+                board[i] = 0;
+            }
+            board[houses[player]] += board[stonesSlots[player]];
+            board[stonesSlots[player]] = 0;
+        }
+    }
+
+    /**
+     * @return whether the player may sow from the given board index
+     */
+    public boolean isLegalMove(int[] board, int player, int pit) {
+        return pit >= 0 && pit < pitCount && ownRegularPit[player][pit] && board[pit] > 0;
+    }
+
+    /**
+     * @return whether one of the sides ran out of stones
+     */
+    public boolean isGameOver(int[] board) {
+        return board[stonesSlots[P1]] == 0 || board[stonesSlots[P2]] == 0;
+    }
+
+    /**
+     * @return player with more stones in the house or {@link #NO_WINNER} on a draw
+     */
+    public int winner(int[] board) {
+        int p1Stones = board[houses[P1]];
+        int p2Stones = board[houses[P2]];
+        if (p1Stones > p2Stones) {
+            return P1;
+        } else if (p2Stones > p1Stones) {
+            return P2;
+        }
+        return NO_WINNER;
+    }
+
+    public static int opponent(int player) {
+        return player ^ 1;
+    }
+
+    public int playerPits() {
+        return playerPits;
+    }
+
+    public int initialStones() {
+        return initialStones;
+    }
+
+    /**
+     * @return number of pits including houses
+     */
+    public int pitCount() {
+        return pitCount;
+    }
+
+    /**
+     * @return length of a board array, pits plus the side totals
+     */
+    public int boardSize() {
+        return boardSize;
+    }
+
+    public int house(int player) {
+        return houses[player];
+    }
+
+    public int firstPit(int player) {
+        return firstPits[player];
+    }
+
+    /**
+     * @return stones left in the player's regular pits
+     */
+    public int sideStones(int[] board, int player) {
+        return board[stonesSlots[player]];
+    }
+
+    /**
+     * @return board index of the opposite pit or -1 for houses
+     */
+    public int oppositePit(int pit) {
+        return oppositePit[pit];
+    }
+
+    /**
+     * @return board index following the given one for the player, skipping the opponent's house
+     */
+    public int nextPit(int player, int pit) {
+        return nextPit[player][pit];
+    }
+
+    /**
+     * @return total number of stones in the game
+     */
+    public int totalStones() {
+        return 2 * playerPits * initialStones;
+    }
+
+}
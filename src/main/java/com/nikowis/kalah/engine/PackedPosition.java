@@ -0,0 +1,212 @@
+package com.nikowis.kalah.engine;
+
+import static com.nikowis.kalah.engine.KalahEngine.*;
+
+/**
+ * Standard Kalah position packed into two longs, usable as a primitive hash key or stored in primitive arrays.
+ * <p>
+ * Every pit takes {@value #PIT_BITS} bits which is enough for all 72 stones of the game. The low word holds board
+ * indices 0-8, the high word holds indices 9-13 followed by the side to move and the finished flag. Because a pit
+ * can never overflow into its neighbour, sowing adds precomputed per player masks to the packed words directly.
+ */
+public final class PackedPosition {
+
+    public static final int PIT_BITS = 7;
+
+    private static final KalahEngine ENGINE = KalahEngine.STANDARD;
+    private static final int PIT_COUNT = ENGINE.pitCount();
+    private static final int CYCLE_LENGTH = PIT_COUNT - 1;
+    private static final int PITS_IN_LOW = 64 / PIT_BITS;
+    private static final long PIT_MASK = (1L << PIT_BITS) - 1;
+    private static final int TURN_BIT = (PIT_COUNT - PITS_IN_LOW) * PIT_BITS;
+    private static final int FINISHED_BIT = TURN_BIT + 1;
+
+    private static final int[] SHIFT = new int[PIT_COUNT];
+    private static final int[] WORD = new int[PIT_COUNT];
+    private static final long[][] LAP = new long[2][2];
+    /**
+     * Masks of the pits receiving the remainder, indexed by player, pit and remainder, low and high word interleaved.
+     */
+    private static final long[][][] REMAINDER = new long[2][PIT_COUNT][2 * CYCLE_LENGTH];
+    private static final int[][][] LAST_PIT = new int[2][PIT_COUNT][CYCLE_LENGTH];
+    private static final long[][] SIDE_MASK = new long[2][2];
+
+    static {
+        for (int i = 0; i < PIT_COUNT; i++) {
+            WORD[i] = i < PITS_IN_LOW ? 0 : 1;
+            SHIFT[i] = (i - WORD[i] * PITS_IN_LOW) * PIT_BITS;
+        }
+        for (int player = P1; player <= P2; player++) {
+            for (int pit = 0; pit < PIT_COUNT; pit++) {
+                if (pit != ENGINE.house(opponent(player))) {
+                    LAP[player][WORD[pit]] += 1L << SHIFT[pit];
+                }
+                if (pit >= ENGINE.firstPit(player) && pit < ENGINE.house(player)) {
+                    SIDE_MASK[player][WORD[pit]] |= PIT_MASK << SHIFT[pit];
+                }
+
+                long[] sown = new long[2];
+                int last = pit;
+                LAST_PIT[player][pit][0] = pit;
+                for (int remainder = 1; remainder < CYCLE_LENGTH; remainder++) {
+                    last = ENGINE.nextPit(player, last);
+                    sown[WORD[last]] += 1L << SHIFT[last];
+                    REMAINDER[player][pit][2 * remainder] = sown[0];
+                    REMAINDER[player][pit][2 * remainder + 1] = sown[1];
+                    LAST_PIT[player][pit][remainder] = last;
+                }
+            }
+        }
+    }
+
+    private PackedPosition() {
+    }
+
+    /**
+     * @return low word of the given {@link KalahEngine#STANDARD} board
+     */
+    public static long low(int[] board) {
+        long low = 0;
+        for (int i = 0; i < PITS_IN_LOW; i++) {
+            low |= (long) board[i] << SHIFT[i];
+        }
+        return low;
+    }
+
+    /**
+     * @return high word of the given {@link KalahEngine#STANDARD} board
+     */
+    public static long high(int[] board, int sideToMove, boolean finished) {
+        long high = 0;
+        for (int i = PITS_IN_LOW; i < PIT_COUNT; i++) {
+            high |= (long) board[i] << SHIFT[i];
+        }
+        high |= (long) sideToMove << TURN_BIT;
+        if (finished) {
+            high |= 1L << FINISHED_BIT;
+        }
+        return high;
+    }
+
+    /**
+     * Fills a {@link KalahEngine#STANDARD} board, including side totals, from a packed position.
+     */
+    public static void decode(long low, long high, int[] board) {
+        for (int i = 0; i < PIT_COUNT; i++) {
+            board[i] = stones(low, high, i);
+        }
+        ENGINE.updateSideTotals(board);
+    }
+
+    /**
+     * @return stones in the given board index
+     */
+    public static int stones(long low, long high, int pit) {
+        return (int) (((WORD[pit] == 0 ? low : high) >>> SHIFT[pit]) & PIT_MASK);
+    }
+
+    public static int sideToMove(long high) {
+        return (int) (high >>> TURN_BIT) & 1;
+    }
+
+    public static boolean isFinished(long high) {
+        return (high & (1L << FINISHED_BIT)) != 0;
+    }
+
+    /**
+     * @return whether the side to move may sow from the given board index
+     */
+    public static boolean isLegalMove(long low, long high, int pit) {
+        int player = sideToMove(high);
+        return !isFinished(high) && pit >= ENGINE.firstPit(player) && pit < ENGINE.house(player) && stones(low, high, pit) > 0;
+    }
+
+    /**
+     * @return board index the last stone sown from the given pit by the side to move lands in
+     */
+    public static int lastPit(long low, long high, int pit) {
+        return LAST_PIT[sideToMove(high)][pit][stones(low, high, pit) % CYCLE_LENGTH];
+    }
+
+    /**
+     * Makes a legal move for the side to move in place.
+     *
+     * @param positions array holding the low word under {@code offset} and the high word under {@code offset + 1}
+     * @param pit       board index of the selected pit
+     * @return a combination of {@link KalahEngine#EXTRA_TURN}, {@link KalahEngine#CAPTURE} and
+     * {@link KalahEngine#GAME_OVER} flags, same as {@link KalahEngine#move(int[], int, int)}
+     */
+    public static int move(long[] positions, int offset, int pit) {
+        int player = sideToMove(positions[offset + 1]);
+
+        int stones = take(positions, offset, pit);
+        int laps = stones / CYCLE_LENGTH;
+        int remainder = stones - laps * CYCLE_LENGTH;
+        long[] lap = LAP[player];
+        long[] sown = REMAINDER[player][pit];
+        positions[offset] += laps * lap[0] + sown[2 * remainder];
+        positions[offset + 1] += laps * lap[1] + sown[2 * remainder + 1];
+        int last = LAST_PIT[player][pit][remainder];
+
+        int result = 0;
+        int house = ENGINE.house(player);
+        if (last >= ENGINE.firstPit(player) && last < house && stones(positions[offset], positions[offset + 1], last) == 1) {
+            int captured = take(positions, offset, last) + take(positions, offset, ENGINE.oppositePit(last));
+            add(positions, offset, house, captured);
+            result |= CAPTURE;
+        }
+
+        if (last == house) {
+            result |= EXTRA_TURN;
+        } else {
+            positions[offset + 1] ^= 1L << TURN_BIT;
+        }
+
+        if (sideIsEmpty(positions, offset, P1) || sideIsEmpty(positions, offset, P2)) {
+            for (int side = P1; side <= P2; side++) {
+                int remaining = 0;
+                for (int i = ENGINE.firstPit(side); i < ENGINE.house(side); i++) {
+                    remaining += take(positions, offset, i);
+                }
+                add(positions, offset, ENGINE.house(side), remaining);
+            }
+            positions[offset + 1] |= 1L << FINISHED_BIT;
+            result |= GAME_OVER;
+        }
+        return result;
+    }
+
+    private static int take(long[] positions, int offset, int pit) {
+        int word = offset + WORD[pit];
+        int stones = (int) ((positions[word] >>> SHIFT[pit]) & PIT_MASK);
+        positions[word] &= ~(PIT_MASK << SHIFT[pit]);
+        return stones;
+    }
+
+    private static void add(long[] positions, int offset, int pit, int stones) {
+        positions[offset + WORD[pit]] += (long) stones << SHIFT[pit];
+    }
+
+    private static boolean sideIsEmpty(long[] positions, int offset, int player) {
+        return (positions[offset] & SIDE_MASK[player][0]) == 0 && (positions[offset + 1] & SIDE_MASK[player][1]) == 0;
+    }
+
+    /**
+     * Total order of packed positions, high word first, both compared as unsigned.
+     */
+    public static int compare(long low1, long high1, long low2, long high2) {
+        int result = Long.compareUnsigned(high1, high2);
+        return result != 0 ? result : Long.compareUnsigned(low1, low2);
+    }
+
+    /**
+     * @return well mixed 64 bit hash of a packed position
+     */
+    public static long hash(long low, long high) {
+        long h = low * 0x9E3779B97F4A7C15L ^ Long.rotateLeft(high * 0xC2B2AE3D27D4EB4FL, 31);
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        return h ^ (h >>> 33);
+    }
+
+}
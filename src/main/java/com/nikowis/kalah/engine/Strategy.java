@@ -0,0 +1,16 @@
+package com.nikowis.kalah.engine;
+
+/**
+ * Chooses the moves of a player in games played in memory. An instance is used by one thread at a time, so it may
+ * keep scratch buffers and a random generator without synchronization.
+ */
+public interface Strategy {
+
+    /**
+     * @param board  {@link KalahEngine#STANDARD} board of a game that is not finished,
+     *               must not be modified
+     * @param player player to move
+     * @return board index of a legal pit of the player
+     */
+    int choosePit(int[] board, int player);
+}
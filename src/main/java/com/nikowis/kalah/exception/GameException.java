@@ -1,4 +1,12 @@
 package com.nikowis.kalah.exception;
 
+/**
+ * Rejection of a move. Rejections are expected in normal play and are mapped to a fixed response,
+ * so they do not capture a stack trace.
+ */
 public abstract class GameException extends RuntimeException {
+
+    protected GameException() {
+        super(null, null, false, false);
+    }
 }
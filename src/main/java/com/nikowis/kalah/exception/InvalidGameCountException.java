@@ -0,0 +1,4 @@
+package com.nikowis.kalah.exception;
+
+public class InvalidGameCountException extends RuntimeException {
+}
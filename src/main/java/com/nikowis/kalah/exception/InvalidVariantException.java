@@ -0,0 +1,4 @@
+package com.nikowis.kalah.exception;
+
+public class InvalidVariantException extends RuntimeException {
+}
@@ -0,0 +1,99 @@
+package com.nikowis.kalah.metrics;
+
+import com.nikowis.kalah.model.Kalah;
+import com.nikowis.kalah.model.MoveResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Meters of the game flow: time spent in the engine per move, game load and save latency, rejected moves by reason
+ * and created and finished games. Request timings come from the {@code http.server.requests} metrics of Spring Boot.
+ */
+@Component
+public class GameMetrics {
+
+    public static final String ENGINE_MOVE = "kalah.engine.move";
+    public static final String GAME_LOAD = "kalah.games.load";
+    public static final String GAME_SAVE = "kalah.games.save";
+    public static final String INVALID_MOVES = "kalah.moves.invalid";
+    public static final String GAMES_CREATED = "kalah.games.created";
+    public static final String GAMES_FINISHED = "kalah.games.finished";
+
+    private static final String DRAW = "DRAW";
+
+    private final MeterRegistry registry;
+    private final Timer engineMove;
+    private final Timer gameLoad;
+    private final Timer gameSave;
+    private final Counter gamesCreated;
+    private final Map<MoveResult, Counter> invalidMoves = new EnumMap<>(MoveResult.class);
+
+    @Autowired
+    public GameMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.engineMove = Timer.builder(ENGINE_MOVE).description("Time to validate and apply a single move").register(registry);
+        this.gameLoad = Timer.builder(GAME_LOAD).description("Time to load a game that was not cached").register(registry);
+        this.gameSave = Timer.builder(GAME_SAVE).description("Time until the write of a changed game is acknowledged").register(registry);
+        this.gamesCreated = Counter.builder(GAMES_CREATED).register(registry);
+        for (MoveResult result : MoveResult.values()) {
+            if (!result.isValid()) {
+                invalidMoves.put(result, Counter.builder(INVALID_MOVES)
+                        .tag("exception", result.toException().getClass().getSimpleName())
+                        .register(registry));
+            }
+        }
+    }
+
+    /**
+     * @see Kalah#tryMove(int)
+     */
+    public MoveResult move(Kalah game, int pit) {
+        // timed without a lambda, moves do not allocate
+        long start = System.nanoTime();
+        MoveResult result = game.tryMove(pit);
+        engineMove.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    public <T> T timeLoad(Supplier<T> load) {
+        return gameLoad.record(load);
+    }
+
+    /**
+     * Times the write up to the completion of its future, so writers that queue the game include the wait for the
+     * actual store.
+     */
+    public CompletableFuture<Void> timeSave(Supplier<CompletableFuture<Void>> save) {
+        long start = System.nanoTime();
+        try {
+            return save.get().whenComplete((written, e) -> gameSave.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        } catch (RuntimeException e) {
+            gameSave.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    /**
+     * Counts a rejected move, tagged with the exception it is answered with.
+     */
+    public void invalidMove(MoveResult rejection) {
+        invalidMoves.get(rejection).increment();
+    }
+
+    public void gamesCreated(int count) {
+        gamesCreated.increment(count);
+    }
+
+    public void gameFinished(Kalah game) {
+        registry.counter(GAMES_FINISHED, "winner", game.getWinner() == null ? DRAW : game.getWinner().name()).increment();
+    }
+}
@@ -1,26 +1,55 @@
 package com.nikowis.kalah.model;
 
-import com.nikowis.kalah.exception.*;
+import com.nikowis.kalah.engine.KalahEngine;
+import com.nikowis.kalah.engine.PackedPosition;
+import com.nikowis.kalah.exception.GameException;
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
 import org.assertj.core.util.VisibleForTesting;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
+/**
+ * A game of any {@link KalahEngine} variant, the constants describe the standard 6 pit and 6 stone game.
+ */
 @Getter
 public class Kalah {
 
-    static final Integer INITIAL_STONE_COUNT = 6;
-    static final Integer FIRST_PIT_IDX = 1;
-    static final Integer PLAYER_PITS = 6;
-    static final Integer P1_HOUSE_IDX = FIRST_PIT_IDX + PLAYER_PITS;
-    static final Integer P2_HOUSE_IDX = P1_HOUSE_IDX + PLAYER_PITS + 1;
+    public static final int INITIAL_STONE_COUNT = 6;
+    public static final int FIRST_PIT_IDX = 1;
+    public static final int PLAYER_PITS = 6;
+    public static final int P1_HOUSE_IDX = FIRST_PIT_IDX + PLAYER_PITS;
+    public static final int P2_HOUSE_IDX = P1_HOUSE_IDX + PLAYER_PITS + 1;
+    public static final int PIT_COUNT = P2_HOUSE_IDX;
+
+    private static final Player[] PLAYERS = Player.values();
 
     @Id
     private String id;
+    @Getter(AccessLevel.NONE)
+    private final KalahEngine engine;
+    @Version
+    @Setter
+    private Long version;
+    /**
+     * Number of moves made since the game was created.
+     */
+    @Setter
+    private long moveCount;
+    /**
+     * Player whose moves are made by the computer, {@code null} when both players are human.
+     */
+    @Setter
+    private Player bot;
+    /**
+     * {@link KalahEngine} board, pit number {@code n} is stored under index {@code n - FIRST_PIT_IDX}.
+     */
     @VisibleForTesting
-    Map<Integer, Integer> pits;
+    @Getter(AccessLevel.NONE)
+    int[] board;
     @VisibleForTesting
     Player whoseTurn;
     @VisibleForTesting
@@ -29,98 +58,164 @@ public class Kalah {
     Player winner;
 
     public Kalah() {
-        pits = new HashMap<>();
-        for (int i = FIRST_PIT_IDX; i <= P2_HOUSE_IDX; i++) {
-            pits.put(i, i == P1_HOUSE_IDX || i == P2_HOUSE_IDX ? 0 : INITIAL_STONE_COUNT);
-        }
+        this(null, KalahEngine.STANDARD);
+    }
+
+    /**
+     * Creates a new game with an id assigned up front, so it can be stored without a round trip for the id.
+     */
+    public Kalah(String id) {
+        this(id, KalahEngine.STANDARD);
+    }
+
+    /**
+     * Creates a new game of the variant played by the engine.
+     */
+    public Kalah(String id, KalahEngine engine) {
+        this.id = id;
+        this.engine = engine;
+        board = engine.newBoard();
 
         whoseTurn = Player.P1;
     }
 
+    /**
+     * Restores a standard game from its persisted state.
+     */
+    public Kalah(String id, int[] pits, Player whoseTurn, boolean gameFinished, Player winner) {
+        this(id, KalahEngine.STANDARD, pits, whoseTurn, gameFinished, winner);
+    }
+
+    /**
+     * Restores a game of the variant played by the engine from its persisted state.
+     */
+    public Kalah(String id, KalahEngine engine, int[] pits, Player whoseTurn, boolean gameFinished, Player winner) {
+        this.id = id;
+        this.engine = engine;
+        this.board = engine.newBoard(pits);
+        this.whoseTurn = whoseTurn;
+        this.gameFinished = gameFinished;
+        this.winner = winner;
+    }
 
+    /**
+     * Makes the move of the player whose turn it is.
+     *
+     * @throws GameException when the move is not valid, the game is left unchanged
+     */
     public void move(int selectedPit) {
-        validateMove(selectedPit);
-        Integer stonesInHand = removeStones(selectedPit);
-        int lastPit = sowStones(selectedPit, stonesInHand);
+        MoveResult result = tryMove(selectedPit);
+        if (!result.isValid()) {
+            throw result.toException();
+        }
+    }
 
-        if (isEligibleToCaptureOppositePit(lastPit)) {
-            captureAndMoveStones(lastPit);
+    /**
+     * Makes the move if it is valid, without throwing otherwise.
+     *
+     * @return {@link MoveResult#OK} if the move was made, otherwise the reason it was rejected and the game is left unchanged
+     */
+    public MoveResult tryMove(int selectedPit) {
+        MoveResult validation = validateMove(selectedPit);
+        if (!validation.isValid()) {
+            return validation;
         }
+        int flags = engine.move(board, whoseTurn.ordinal(), selectedPit - FIRST_PIT_IDX);
 
-        if (isNotAHousePit(lastPit)) {
+        if ((flags & KalahEngine.EXTRA_TURN) == 0) {
             changeTurns();
         }
 
-        if (gameCanBeFinished()) {
+        if ((flags & KalahEngine.GAME_OVER) != 0) {
             gameFinished = true;
-            moveAllStonesToHouses();
-            winner = selectWinner();
+            int winnerIdx = engine.winner(board);
+            winner = winnerIdx == KalahEngine.NO_WINNER ? null : PLAYERS[winnerIdx];
         }
 
+        moveCount++;
+        return MoveResult.OK;
     }
 
-    private void moveAllStonesToHouses() {
-        int p1RemainingStones = 0, p2RemainingStones = 0;
-        for (int i = FIRST_PIT_IDX; i < P2_HOUSE_IDX; i++) {
-            if (i < P1_HOUSE_IDX) {
-                p1RemainingStones += removeStones(i);
-            } else if (i > P1_HOUSE_IDX) {
-                p2RemainingStones += removeStones(i);
-            }
-        }
-
-        pits.put(P1_HOUSE_IDX, pits.get(P1_HOUSE_IDX) + p1RemainingStones);
-        pits.put(P2_HOUSE_IDX, pits.get(P2_HOUSE_IDX) + p2RemainingStones);
+    /**
+     * @return number of regular pits of each player
+     */
+    public int getPlayerPits() {
+        return engine.playerPits();
     }
 
-    private Player selectWinner() {
-        Integer p1Stones = pits.get(P1_HOUSE_IDX);
-        Integer p2Stones = pits.get(P2_HOUSE_IDX);
-
-        if (p1Stones > p2Stones) {
-            return Player.P1;
-        } else if (p2Stones > p1Stones) {
-            return Player.P2;
-        }
-        return null;
+    /**
+     * @return stones every regular pit started with
+     */
+    public int getInitialStones() {
+        return engine.initialStones();
     }
 
-    private boolean gameCanBeFinished() {
-        return p1DoesntHaveStonesInPits() || p2DoesntHaveStonesInPits();
+    /**
+     * @return number of pits including houses
+     */
+    public int getPitCount() {
+        return engine.pitCount();
     }
 
-    private boolean p1DoesntHaveStonesInPits() {
-        return !pits.entrySet().stream().filter(e -> e.getKey() < P1_HOUSE_IDX).anyMatch(e -> e.getValue() > 0);
+    /**
+     * @return whether this is the standard game, the only one that can be {@link PackedPosition packed}
+     */
+    public boolean isStandard() {
+        return engine == KalahEngine.STANDARD;
     }
 
-    private boolean p2DoesntHaveStonesInPits() {
-        return !pits.entrySet().stream().filter(e -> e.getKey() > P1_HOUSE_IDX && e.getKey() < P2_HOUSE_IDX).anyMatch(e -> e.getValue() > 0);
+    /**
+     * @return low word of the {@link PackedPosition} encoding of this game
+     * @throws IllegalStateException if this is not the {@link #isStandard() standard} game
+     */
+    public long packLow() {
+        requireStandard();
+        return PackedPosition.low(board);
     }
 
-    private void captureAndMoveStones(int pit) {
-        Integer selfStones = removeStones(pit);
-        Integer capturedStones = removeStones(getOppositePitIdx(pit));
-        moveStonesToPlayersHouse(selfStones + capturedStones);
+    /**
+     * @return high word of the {@link PackedPosition} encoding of this game
+     * @throws IllegalStateException if this is not the {@link #isStandard() standard} game
+     */
+    public long packHigh() {
+        requireStandard();
+        return PackedPosition.high(board, whoseTurn.ordinal(), gameFinished);
     }
 
-    private void moveStonesToPlayersHouse(int stones) {
-        if (Player.P1.equals(whoseTurn)) {
-            pits.put(P1_HOUSE_IDX, pits.get(P1_HOUSE_IDX) + stones);
-        } else {
-            pits.put(P2_HOUSE_IDX, pits.get(P2_HOUSE_IDX) + stones);
+    private void requireStandard() {
+        if (!isStandard()) {
+            throw new IllegalStateException("Only the standard game can be packed, this one has " + getPitCount() + " pits");
         }
     }
 
-    private boolean isEligibleToCaptureOppositePit(int pit) {
-        return isPlayersRegularPit(pit) && wasEmptyBeforeTheMove(pit);
+    /**
+     * Restores a standard game from its {@link PackedPosition} encoding.
+     */
+    public static Kalah fromPacked(String id, long low, long high) {
+        Kalah kalah = new Kalah();
+        kalah.id = id;
+        PackedPosition.decode(low, high, kalah.board);
+        kalah.whoseTurn = PLAYERS[PackedPosition.sideToMove(high)];
+        kalah.gameFinished = PackedPosition.isFinished(high);
+        if (kalah.gameFinished) {
+            int winnerIdx = KalahEngine.STANDARD.winner(kalah.board);
+            kalah.winner = winnerIdx == KalahEngine.NO_WINNER ? null : PLAYERS[winnerIdx];
+        }
+        return kalah;
     }
 
-    private boolean wasEmptyBeforeTheMove(int pit) {
-        return pits.get(pit) == 1;
+    /**
+     * @return copy of the stones per pit, pit number {@code n} is stored under index {@code n - FIRST_PIT_IDX}
+     */
+    public int[] getPits() {
+        return Arrays.copyOf(board, engine.pitCount());
     }
 
-    private boolean isPlayersRegularPit(int pit) {
-        return !isOpponentsPit(pit) && !isHousePit(pit);
+    /**
+     * @return number of stones in the given pit
+     */
+    public int getStones(int pit) {
+        return board[pit - FIRST_PIT_IDX];
     }
 
     private void changeTurns() {
@@ -131,76 +226,54 @@ public class Kalah {
         }
     }
 
-    private boolean isNotAHousePit(int pit) {
-        return !P1_HOUSE_IDX.equals(pit) && !P2_HOUSE_IDX.equals(pit);
-    }
-
-    private int sowStones(int fromPit, Integer stonesInHand) {
-        int nextPit = fromPit;
-        while (stonesInHand > 0) {
-            nextPit = getNextPitIdx(nextPit);
-            if (isOpponentsHouse(nextPit)) {
-                continue;
-            }
-            pits.put(nextPit, pits.get(nextPit) + 1);
-            stonesInHand--;
-        }
-        return nextPit;
-    }
-
-    private Integer removeStones(int pit) {
-        Integer stonesInHand = pits.get(pit);
-        pits.put(pit, 0);
-        return stonesInHand;
-    }
-
-    private void validateMove(int selectedPit) {
+    /**
+     * @return whether the player whose turn it is may move the selected pit, without changing the game
+     */
+    public MoveResult validateMove(int selectedPit) {
         if (gameFinished) {
-            throw new GameFinishedException();
+            return MoveResult.GAME_FINISHED;
         }
         if (isPitOutOfBounds(selectedPit)) {
-            throw new PitOutOfBoundsException();
+            return MoveResult.PIT_OUT_OF_BOUNDS;
         }
 
         if (isHousePit(selectedPit)) {
-            throw new CantMoveHouseException();
+            return MoveResult.CANT_MOVE_HOUSE;
         }
         if (isOpponentsPit(selectedPit)) {
-            throw new NotYourPitException();
+            return MoveResult.NOT_YOUR_PIT;
         }
 
-        if (pits.get(selectedPit) == 0) {
-            throw new CantMoveFromEmptyPitException();
+        if (getStones(selectedPit) == 0) {
+            return MoveResult.EMPTY_PIT;
         }
+        return MoveResult.OK;
     }
 
     private boolean isPitOutOfBounds(int pit) {
-        return pit < FIRST_PIT_IDX || pit > P2_HOUSE_IDX;
+        return pit < FIRST_PIT_IDX || pit >= FIRST_PIT_IDX + engine.pitCount();
     }
 
     private boolean isOpponentsPit(int pit) {
-        return (Player.P1.equals(whoseTurn) && pit > P1_HOUSE_IDX) || (Player.P2.equals(whoseTurn) && pit < P1_HOUSE_IDX);
+        int p1House = engine.house(KalahEngine.P1) + FIRST_PIT_IDX;
+        return (Player.P1.equals(whoseTurn) && pit > p1House) || (Player.P2.equals(whoseTurn) && pit < p1House);
     }
 
     private boolean isHousePit(int pit) {
-        return P1_HOUSE_IDX.equals(pit) || P2_HOUSE_IDX.equals(pit);
-    }
-
-    private boolean isOpponentsHouse(int pit) {
-        return (Player.P1.equals(whoseTurn) && P2_HOUSE_IDX.equals(pit)) || (Player.P2.equals(whoseTurn) && P1_HOUSE_IDX.equals(pit));
+        return pit == engine.house(KalahEngine.P1) + FIRST_PIT_IDX || pit == engine.house(KalahEngine.P2) + FIRST_PIT_IDX;
     }
 
     @VisibleForTesting
     static int getNextPitIdx(int pit) {
-        return P2_HOUSE_IDX.equals(pit) ? FIRST_PIT_IDX : pit + 1;
+        return pit == P2_HOUSE_IDX ? FIRST_PIT_IDX : pit + 1;
     }
 
     @VisibleForTesting
     static int getOppositePitIdx(int pit) {
-        if (P1_HOUSE_IDX.equals(pit) || P2_HOUSE_IDX.equals(pit)) {
+        if (pit == P1_HOUSE_IDX || pit == P2_HOUSE_IDX) {
             throw new IllegalArgumentException("Houses do not have opposite pits");
         }
-        return P2_HOUSE_IDX - pit;
+        return KalahEngine.STANDARD.oppositePit(pit - FIRST_PIT_IDX) + FIRST_PIT_IDX;
     }
 
 }
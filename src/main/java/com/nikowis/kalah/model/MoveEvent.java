@@ -0,0 +1,26 @@
+package com.nikowis.kalah.model;
+
+import lombok.Getter;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A single move of a game, {@code seq} is the {@link Kalah#getMoveCount()} right after the move.
+ */
+@Getter
+@Document(MoveEvent.COLLECTION)
+public class MoveEvent {
+
+    public static final String COLLECTION = "moveEvents";
+    public static final String GAME_ID = "gameId";
+    public static final String SEQ = "seq";
+
+    private final String gameId;
+    private final long seq;
+    private final int pit;
+
+    public MoveEvent(String gameId, long seq, int pit) {
+        this.gameId = gameId;
+        this.seq = seq;
+        this.pit = pit;
+    }
+}
@@ -0,0 +1,38 @@
+package com.nikowis.kalah.model;
+
+import com.nikowis.kalah.exception.*;
+
+import java.util.function.Supplier;
+
+/**
+ * Outcome of a move attempt, every rejection corresponds to one {@link GameException}.
+ */
+public enum MoveResult {
+    OK(null),
+    GAME_FINISHED(GameFinishedException::new),
+    PIT_OUT_OF_BOUNDS(PitOutOfBoundsException::new),
+    CANT_MOVE_HOUSE(CantMoveHouseException::new),
+    NOT_YOUR_PIT(NotYourPitException::new),
+    EMPTY_PIT(CantMoveFromEmptyPitException::new);
+
+    private final Supplier<GameException> exception;
+
+    MoveResult(Supplier<GameException> exception) {
+        this.exception = exception;
+    }
+
+    public boolean isValid() {
+        return this == OK;
+    }
+
+    /**
+     * @return new exception for a rejected move
+     * @throws IllegalStateException for {@link #OK}
+     */
+    public GameException toException() {
+        if (exception == null) {
+            throw new IllegalStateException("The move was valid");
+        }
+        return exception.get();
+    }
+}
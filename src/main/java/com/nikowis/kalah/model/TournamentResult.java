@@ -0,0 +1,58 @@
+package com.nikowis.kalah.model;
+
+import lombok.Getter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Final standings of a bot tournament, best rated first.
+ */
+@Getter
+@Document(TournamentResult.COLLECTION)
+public class TournamentResult {
+
+    public static final String COLLECTION = "tournaments";
+
+    @Id
+    private String id;
+    private final Instant finishedAt;
+    /**
+     * Games every entrant played against every other with each colour.
+     */
+    private final int gamesPerPairing;
+    private final long moveTimeBudgetMillis;
+    private final List<Standing> standings;
+
+    public TournamentResult(Instant finishedAt, int gamesPerPairing, long moveTimeBudgetMillis, List<Standing> standings) {
+        this.finishedAt = finishedAt;
+        this.gamesPerPairing = gamesPerPairing;
+        this.moveTimeBudgetMillis = moveTimeBudgetMillis;
+        this.standings = standings;
+    }
+
+    @Getter
+    public static class Standing {
+
+        private final String name;
+        private final int wins;
+        private final int draws;
+        private final int losses;
+        /**
+         * Losses by exceeding the move time budget or choosing an illegal pit.
+         */
+        private final int forfeits;
+        private final double rating;
+
+        public Standing(String name, int wins, int draws, int losses, int forfeits, double rating) {
+            this.name = name;
+            this.wins = wins;
+            this.draws = draws;
+            this.losses = losses;
+            this.forfeits = forfeits;
+            this.rating = rating;
+        }
+    }
+}
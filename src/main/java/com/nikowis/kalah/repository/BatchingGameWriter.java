@@ -0,0 +1,128 @@
+package com.nikowis.kalah.repository;
+
+import com.nikowis.kalah.model.Kalah;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Coalesces game writes and flushes them to mongo in unordered bulk writes,
+ * when {@code kalah.persistence.batch.size} games are dirty or every {@code kalah.persistence.batch.interval}.
+ * <p>
+ * Only the latest state of a game is kept between flushes, so several moves on a hot game cost a single write.
+ * With {@link Durability#FLUSH} a write is acknowledged after the batch containing it was stored,
+ * with {@link Durability#MEMORY} right away, in which case unflushed games are lost when the node dies.
+ * Bulk replaces do not check versions, so this mode expects each game to be played through a single node.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "kalah.persistence.mode", havingValue = "batched")
+@Profile("!reactive")
+public class BatchingGameWriter implements GameWriter {
+
+    public enum Durability {
+        FLUSH, MEMORY
+    }
+
+    private static final FindAndReplaceOptions UPSERT = FindAndReplaceOptions.options().upsert();
+
+    private final MongoTemplate mongoTemplate;
+    private final int batchSize;
+    private final Durability durability;
+    private final ScheduledExecutorService flusher;
+    private final Map<String, Document> dirty = new ConcurrentHashMap<>();
+    private final AtomicReference<CompletableFuture<Void>> nextFlush = new AtomicReference<>(new CompletableFuture<>());
+
+    @Autowired
+    public BatchingGameWriter(MongoTemplate mongoTemplate,
+                              @Value("${kalah.persistence.batch.size}") int batchSize,
+                              @Value("${kalah.persistence.batch.interval}") Duration interval,
+                              @Value("${kalah.persistence.batch.durability}") Durability durability) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+        this.durability = durability;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "game-writer"));
+        this.flusher.scheduleWithFixedDelay(this::flush, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public CompletableFuture<Void> write(Kalah game) {
+        game.setVersion(game.getVersion() == null ? 0L : game.getVersion() + 1);
+        Document document = new Document();
+        mongoTemplate.getConverter().write(game, document);
+        dirty.put(game.getId(), document);
+        // read after the put, a flush swaps the future before draining so this one completes no earlier than the write
+        CompletableFuture<Void> flushed = nextFlush.get();
+
+        if (dirty.size() >= batchSize) {
+            flusher.execute(this::flush);
+        }
+        return durability == Durability.FLUSH ? flushed : CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public Optional<Kalah> findUnflushed(String id) {
+        Document document = dirty.get(id);
+        return document == null ? Optional.empty() : Optional.of(mongoTemplate.getConverter().read(Kalah.class, document));
+    }
+
+    synchronized void flush() {
+        CompletableFuture<Void> flushed = nextFlush.getAndSet(new CompletableFuture<>());
+        List<Document> batch = new ArrayList<>(Math.max(dirty.size(), 16));
+        for (Map.Entry<String, Document> entry : dirty.entrySet()) {
+            Document document = entry.getValue();
+            // a newer state written meanwhile stays dirty, it was given the future of the next flush
+            if (dirty.remove(entry.getKey(), document)) {
+                batch.add(document);
+            }
+        }
+        if (batch.isEmpty()) {
+            flushed.complete(null);
+            return;
+        }
+
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Kalah.class);
+            for (Document document : batch) {
+                bulk.replaceOne(Query.query(Criteria.where(KalahWriteConverter.ID).is(document.get(KalahWriteConverter.ID))), document, UPSERT);
+            }
+            bulk.execute();
+            flushed.complete(null);
+        } catch (RuntimeException e) {
+            log.error("Failed to flush {} games, retrying with the next batch", batch.size(), e);
+            for (Document document : batch) {
+                dirty.putIfAbsent(idOf(document), document);
+            }
+            flushed.completeExceptionally(e);
+        }
+    }
+
+    private static String idOf(Document document) {
+        return String.valueOf(document.get(KalahWriteConverter.ID));
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+}
@@ -0,0 +1,93 @@
+package com.nikowis.kalah.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.nikowis.kalah.model.Kalah;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache of active games in front of {@link KalahRepository}.
+ * Games are evicted when the cache is full or when they were not accessed for the configured time.
+ */
+@Component
+@Profile("!reactive")
+public class GameCache implements MeterBinder {
+
+    private final Cache<String, Kalah> cache;
+
+    @Autowired
+    public GameCache(@Value("${kalah.cache.maximum-size}") long maximumSize, @Value("${kalah.cache.expire-after-access}") Duration expireAfterAccess) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached game or reads it through the loader, caching a found game.
+     */
+    public Optional<Kalah> findById(String id, Function<String, Optional<Kalah>> loader) {
+        Kalah cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<Kalah> loaded = loader.apply(id);
+        loaded.ifPresent(game -> cache.put(id, game));
+        return loaded;
+    }
+
+    /**
+     * @return the cached game without loading it when missing
+     */
+    public Optional<Kalah> findIfPresent(String id) {
+        return Optional.ofNullable(cache.getIfPresent(id));
+    }
+
+    /**
+     * Caches the game, games without an id assigned by the repository are ignored.
+     */
+    public void put(String id, Kalah game) {
+        if (id != null) {
+            cache.put(id, game);
+        }
+    }
+
+    public void evict(String id) {
+        cache.invalidate(id);
+    }
+
+    /**
+     * @return hit, miss and eviction counters since startup
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Publishes the cache statistics and the number of cached, that is recently played, games.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "games");
+        Gauge.builder("kalah.games.active", this, GameCache::size)
+                .description("Games played within the cache expiry")
+                .register(registry);
+    }
+}
@@ -0,0 +1,61 @@
+package com.nikowis.kalah.repository;
+
+import com.nikowis.kalah.model.Kalah;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Persists games changed by the service, selected with the {@code kalah.persistence.mode} property.
+ */
+public interface GameWriter {
+
+    /**
+     * Queues or performs the write of the current game state.
+     * The state is captured before returning, so the game may be changed again right after the call.
+     *
+     * @return future completed once the write is acknowledged according to the configured durability
+     */
+    CompletableFuture<Void> write(Kalah game);
+
+    /**
+     * Records a valid move made on the game since its last write, called on the game's stripe.
+     */
+    default void recordMove(String id, int pit) {
+    }
+
+    /**
+     * Writes games that were just created and are not stored yet.
+     *
+     * @return future completed once all writes are acknowledged
+     */
+    default CompletableFuture<Void> writeNew(List<Kalah> games) {
+        CompletableFuture<?>[] written = new CompletableFuture<?>[games.size()];
+        for (int i = 0; i < written.length; i++) {
+            written[i] = write(games.get(i));
+        }
+        return CompletableFuture.allOf(written);
+    }
+
+    /**
+     * @return the latest state of a game that was acknowledged but is not stored in the repository yet
+     */
+    default Optional<Kalah> findUnflushed(String id) {
+        return Optional.empty();
+    }
+
+    /**
+     * Brings a loaded game up to date with changes this writer stored outside of the game document.
+     */
+    default Kalah restore(Kalah game) {
+        return game;
+    }
+
+    /**
+     * @return the move counter of a game including changes this writer stored outside of the game document
+     */
+    default long restoreMoveCount(String id, long storedMoveCount) {
+        return storedMoveCount;
+    }
+}
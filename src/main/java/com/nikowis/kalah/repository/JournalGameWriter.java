@@ -0,0 +1,132 @@
+package com.nikowis.kalah.repository;
+
+import com.nikowis.kalah.exception.GameConflictException;
+import com.nikowis.kalah.model.Kalah;
+import com.nikowis.kalah.model.MoveEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Appends every move to the {@value MoveEvent#COLLECTION} collection instead of rewriting the game document,
+ * the game itself is stored as a snapshot every {@code kalah.persistence.journal.snapshot-interval} moves and
+ * when it finishes. Loaded snapshots are brought up to date by replaying the moves made after them.
+ * <p>
+ * Moves are unique by game and sequence number, so a move appended concurrently by another node is a conflict.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "kalah.persistence.mode", havingValue = "journal")
+@Profile("!reactive")
+public class JournalGameWriter implements GameWriter {
+
+    private final KalahRepository kalahRepository;
+    private final MongoTemplate mongoTemplate;
+    private final int snapshotInterval;
+    /**
+     * Pits moved per game since its last write, in order. A game is only changed on its stripe, so each list is
+     * used by one thread at a time.
+     */
+    private final Map<String, List<Integer>> unsavedMoves = new ConcurrentHashMap<>();
+
+    @Autowired
+    public JournalGameWriter(KalahRepository kalahRepository, MongoTemplate mongoTemplate,
+                             @Value("${kalah.persistence.journal.snapshot-interval}") int snapshotInterval) {
+        this.kalahRepository = kalahRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.snapshotInterval = snapshotInterval;
+        mongoTemplate.indexOps(MoveEvent.class).ensureIndex(new Index()
+                .on(MoveEvent.GAME_ID, Sort.Direction.ASC)
+                .on(MoveEvent.SEQ, Sort.Direction.ASC)
+                .unique());
+    }
+
+    @Override
+    public void recordMove(String id, int pit) {
+        unsavedMoves.computeIfAbsent(id, gameId -> new ArrayList<>()).add(pit);
+    }
+
+    /**
+     * Appends the moves recorded since the last write, they are dropped even if the write fails as the game is
+     * reloaded then.
+     */
+    @Override
+    public CompletableFuture<Void> write(Kalah game) {
+        List<Integer> moves = unsavedMoves.remove(game.getId());
+        if (game.getVersion() == null) {
+            kalahRepository.save(game);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (moves == null) {
+            moves = List.of();
+        }
+        long firstSeq = game.getMoveCount() - moves.size() + 1;
+        List<MoveEvent> events = new ArrayList<>(moves.size());
+        for (int i = 0; i < moves.size(); i++) {
+            events.add(new MoveEvent(game.getId(), firstSeq + i, moves.get(i)));
+        }
+        try {
+            mongoTemplate.insert(events, MoveEvent.class);
+        } catch (DuplicateKeyException e) {
+            throw new GameConflictException();
+        }
+
+        if (game.isGameFinished() || crossesSnapshot(game.getMoveCount(), moves.size())) {
+            // the moves are already stored, a snapshot lost to a concurrent one only means a longer replay
+            if (!kalahRepository.replaceIfVersionMatches(game)) {
+                log.debug("Skipped snapshot of game {} at move {}, it was replaced concurrently", game.getId(), game.getMoveCount());
+            }
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Void> writeNew(List<Kalah> games) {
+        kalahRepository.insert(games);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private boolean crossesSnapshot(long moveCount, int appended) {
+        return moveCount / snapshotInterval > (moveCount - appended) / snapshotInterval;
+    }
+
+    /**
+     * Replays the moves made after the snapshot through {@link Kalah#move(int)}, moves recorded on an earlier copy of
+     * the game are discarded.
+     */
+    @Override
+    public Kalah restore(Kalah game) {
+        Query query = Query.query(Criteria.where(MoveEvent.GAME_ID).is(game.getId()).and(MoveEvent.SEQ).gt(game.getMoveCount()))
+                .with(Sort.by(MoveEvent.SEQ));
+        for (MoveEvent event : mongoTemplate.find(query, MoveEvent.class)) {
+            game.move(event.getPit());
+        }
+        unsavedMoves.remove(game.getId());
+        return game;
+    }
+
+    @Override
+    public long restoreMoveCount(String id, long storedMoveCount) {
+        Query query = Query.query(Criteria.where(MoveEvent.GAME_ID).is(id).and(MoveEvent.SEQ).gt(storedMoveCount))
+                .with(Sort.by(Sort.Direction.DESC, MoveEvent.SEQ));
+        query.fields().include(MoveEvent.SEQ);
+        MoveEvent latest = mongoTemplate.findOne(query, MoveEvent.class);
+        return latest == null ? storedMoveCount : latest.getSeq();
+    }
+}
@@ -0,0 +1,51 @@
+package com.nikowis.kalah.repository;
+
+import com.nikowis.kalah.engine.KalahEngine;
+import com.nikowis.kalah.model.Kalah;
+import com.nikowis.kalah.model.Player;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+
+import static com.nikowis.kalah.repository.KalahWriteConverter.*;
+
+/**
+ * Reads {@link Kalah} documents written by {@link KalahWriteConverter} into the primitive board.
+ */
+@ReadingConverter
+public class KalahReadConverter implements Converter<Document, Kalah> {
+
+    @Override
+    public Kalah convert(Document source) {
+        Object id = source.get(ID);
+        String gameId = id instanceof ObjectId ? ((ObjectId) id).toHexString() : (String) id;
+
+        // games stored before variants were introduced are standard games
+        Number playerPits = source.get(PLAYER_PITS, Number.class);
+        Number initialStones = source.get(INITIAL_STONES, Number.class);
+        KalahEngine engine = playerPits == null ? KalahEngine.STANDARD : KalahEngine.of(playerPits.intValue(), initialStones.intValue());
+
+        Document pitsDocument = source.get(PITS, Document.class);
+        int[] pits = new int[engine.pitCount()];
+        for (int i = 0; i < pits.length; i++) {
+            pits[i] = pitsDocument.getInteger(PIT_KEYS[i]);
+        }
+
+        Kalah kalah = new Kalah(gameId, engine, pits,
+                toPlayer(source.getString(WHOSE_TURN)),
+                source.getBoolean(GAME_FINISHED, false),
+                toPlayer(source.getString(WINNER)));
+        // games stored before versioning was introduced are treated as the first version
+        Number version = source.get(VERSION, Number.class);
+        kalah.setVersion(version == null ? 0L : version.longValue());
+        Number moveCount = source.get(MOVE_COUNT, Number.class);
+        kalah.setMoveCount(moveCount == null ? 0L : moveCount.longValue());
+        kalah.setBot(toPlayer(source.getString(BOT)));
+        return kalah;
+    }
+
+    private static Player toPlayer(String name) {
+        return name == null ? null : Player.valueOf(name);
+    }
+}
@@ -0,0 +1,23 @@
+package com.nikowis.kalah.repository;
+
+import com.nikowis.kalah.model.Kalah;
+
+import java.util.Optional;
+
+public interface KalahRepositoryCustom {
+
+    /**
+     * Atomically replaces the stored game if its version still matches the one the game was loaded with.
+     * On success the version of the given game is incremented.
+     *
+     * @return false when the game was changed concurrently
+     */
+    boolean replaceIfVersionMatches(Kalah game);
+
+    /**
+     * Reads only the move counter of the stored game.
+     *
+     * @return empty when the game does not exist
+     */
+    Optional<Long> findMoveCount(String id);
+}
@@ -0,0 +1,80 @@
+package com.nikowis.kalah.repository;
+
+import com.nikowis.kalah.model.Kalah;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Optional;
+
+import static com.nikowis.kalah.repository.KalahWriteConverter.ID;
+import static com.nikowis.kalah.repository.KalahWriteConverter.MOVE_COUNT;
+import static com.nikowis.kalah.repository.KalahWriteConverter.VERSION;
+
+class KalahRepositoryImpl implements KalahRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    KalahRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public boolean replaceIfVersionMatches(Kalah game) {
+        long expectedVersion = game.getVersion();
+        Document document = new Document();
+        mongoTemplate.getConverter().write(game, document);
+
+        Document previous = mongoTemplate.findAndReplace(versionQuery(document, expectedVersion), replacement(document, expectedVersion),
+                FindAndReplaceOptions.none(), Document.class, mongoTemplate.getCollectionName(Kalah.class), Document.class);
+        if (previous == null) {
+            return false;
+        }
+        game.setVersion(expectedVersion + 1);
+        return true;
+    }
+
+    /**
+     * @return query matching the stored game only while it has the expected version
+     */
+    static Query versionQuery(Document document, long expectedVersion) {
+        Criteria criteria = Criteria.where(ID).is(document.get(ID));
+        // games stored before versioning was introduced do not have the field yet
+        criteria = expectedVersion == 0 ? criteria.and(VERSION).in(0L, null) : criteria.and(VERSION).is(expectedVersion);
+        Query query = Query.query(criteria);
+        query.fields().include(ID);
+        return query;
+    }
+
+    /**
+     * @return the written game with the next version, replacing the whole stored document so no stale field survives
+     */
+    static Document replacement(Document document, long expectedVersion) {
+        Document replacement = new Document(document);
+        replacement.put(VERSION, expectedVersion + 1);
+        return replacement;
+    }
+
+    static Query moveCountQuery(String id) {
+        Query query = Query.query(Criteria.where(ID).is(ObjectId.isValid(id) ? new ObjectId(id) : id));
+        query.fields().include(MOVE_COUNT);
+        return query;
+    }
+
+    static long moveCountOf(Document stored) {
+        // games stored before moves were counted do not have the field yet
+        Number moveCount = stored.get(MOVE_COUNT, Number.class);
+        return moveCount == null ? 0L : moveCount.longValue();
+    }
+
+    @Override
+    public Optional<Long> findMoveCount(String id) {
+        Document stored = mongoTemplate.findOne(moveCountQuery(id), Document.class, mongoTemplate.getCollectionName(Kalah.class));
+        return Optional.ofNullable(stored).map(KalahRepositoryImpl::moveCountOf);
+    }
+}
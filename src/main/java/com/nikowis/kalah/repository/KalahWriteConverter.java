@@ -0,0 +1,72 @@
+package com.nikowis.kalah.repository;
+
+import com.nikowis.kalah.engine.KalahEngine;
+import com.nikowis.kalah.model.Kalah;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.WritingConverter;
+
+/**
+ * Writes {@link Kalah} in the same document shape the default mapping produced for the former map based board,
+ * so stored games stay readable: pits are kept as a sub-document keyed by pit number. Only games of other variants
+ * than the standard one store their pits per player and initial stones.
+ */
+@WritingConverter
+public class KalahWriteConverter implements Converter<Kalah, Document> {
+
+    static final String ID = "_id";
+    static final String CLASS = "_class";
+    static final String PITS = "pits";
+    static final String WHOSE_TURN = "whoseTurn";
+    static final String GAME_FINISHED = "gameFinished";
+    static final String WINNER = "winner";
+    static final String VERSION = "version";
+    static final String MOVE_COUNT = "moveCount";
+    static final String BOT = "bot";
+    static final String PLAYER_PITS = "playerPits";
+    static final String INITIAL_STONES = "initialStones";
+
+    static final String[] PIT_KEYS = new String[KalahEngine.MAX_PIT_COUNT];
+
+    static {
+        for (int i = 0; i < PIT_KEYS.length; i++) {
+            PIT_KEYS[i] = String.valueOf(i + Kalah.FIRST_PIT_IDX);
+        }
+    }
+
+    @Override
+    public Document convert(Kalah source) {
+        Document document = new Document();
+        if (source.getId() != null) {
+            document.put(ID, ObjectId.isValid(source.getId()) ? new ObjectId(source.getId()) : source.getId());
+        }
+
+        if (!source.isStandard()) {
+            document.put(PLAYER_PITS, source.getPlayerPits());
+            document.put(INITIAL_STONES, source.getInitialStones());
+        }
+
+        int[] pits = source.getPits();
+        Document pitsDocument = new Document();
+        for (int i = 0; i < pits.length; i++) {
+            pitsDocument.put(PIT_KEYS[i], pits[i]);
+        }
+        document.put(PITS, pitsDocument);
+
+        document.put(WHOSE_TURN, source.getWhoseTurn() == null ? null : source.getWhoseTurn().name());
+        document.put(GAME_FINISHED, source.isGameFinished());
+        if (source.getWinner() != null) {
+            document.put(WINNER, source.getWinner().name());
+        }
+        if (source.getVersion() != null) {
+            document.put(VERSION, source.getVersion());
+        }
+        document.put(MOVE_COUNT, source.getMoveCount());
+        if (source.getBot() != null) {
+            document.put(BOT, source.getBot().name());
+        }
+        document.put(CLASS, Kalah.class.getName());
+        return document;
+    }
+}
@@ -0,0 +1,7 @@
+package com.nikowis.kalah.repository;
+
+import com.nikowis.kalah.model.Kalah;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface ReactiveKalahRepository extends ReactiveMongoRepository<Kalah, String>, ReactiveKalahRepositoryCustom {
+}
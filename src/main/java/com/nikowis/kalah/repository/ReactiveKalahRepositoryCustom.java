@@ -0,0 +1,20 @@
+package com.nikowis.kalah.repository;
+
+import com.nikowis.kalah.model.Kalah;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non blocking counterpart of {@link KalahRepositoryCustom}.
+ */
+public interface ReactiveKalahRepositoryCustom {
+
+    /**
+     * @see KalahRepositoryCustom#replaceIfVersionMatches(Kalah)
+     */
+    Mono<Boolean> replaceIfVersionMatches(Kalah game);
+
+    /**
+     * @return the move counter of the stored game, empty when the game does not exist
+     */
+    Mono<Long> findMoveCount(String id);
+}
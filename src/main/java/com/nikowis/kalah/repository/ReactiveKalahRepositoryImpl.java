@@ -0,0 +1,40 @@
+package com.nikowis.kalah.repository;
+
+import com.nikowis.kalah.model.Kalah;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+
+class ReactiveKalahRepositoryImpl implements ReactiveKalahRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    ReactiveKalahRepositoryImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Mono<Boolean> replaceIfVersionMatches(Kalah game) {
+        long expectedVersion = game.getVersion();
+        Document document = new Document();
+        mongoTemplate.getConverter().write(game, document);
+
+        return mongoTemplate.findAndReplace(KalahRepositoryImpl.versionQuery(document, expectedVersion),
+                        KalahRepositoryImpl.replacement(document, expectedVersion),
+                        FindAndReplaceOptions.none(), Document.class, mongoTemplate.getCollectionName(Kalah.class), Document.class)
+                .map(previous -> {
+                    game.setVersion(expectedVersion + 1);
+                    return true;
+                })
+                .defaultIfEmpty(false);
+    }
+
+    @Override
+    public Mono<Long> findMoveCount(String id) {
+        return mongoTemplate.findOne(KalahRepositoryImpl.moveCountQuery(id), Document.class, mongoTemplate.getCollectionName(Kalah.class))
+                .map(KalahRepositoryImpl::moveCountOf);
+    }
+}
@@ -0,0 +1,47 @@
+package com.nikowis.kalah.repository;
+
+import com.nikowis.kalah.exception.GameConflictException;
+import com.nikowis.kalah.model.Kalah;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Saves every change with a single document write before acknowledging it.
+ * Stored games are replaced only if nobody changed them since they were loaded.
+ */
+@Component
+@ConditionalOnProperty(name = "kalah.persistence.mode", havingValue = "sync", matchIfMissing = true)
+@Profile("!reactive")
+public class SyncGameWriter implements GameWriter {
+
+    private final KalahRepository kalahRepository;
+
+    @Autowired
+    public SyncGameWriter(KalahRepository kalahRepository) {
+        this.kalahRepository = kalahRepository;
+    }
+
+    @Override
+    public CompletableFuture<Void> write(Kalah game) {
+        if (game.getVersion() == null) {
+            kalahRepository.save(game);
+        } else if (!kalahRepository.replaceIfVersionMatches(game)) {
+            throw new GameConflictException();
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Stores all games with a single bulk insert.
+     */
+    @Override
+    public CompletableFuture<Void> writeNew(List<Kalah> games) {
+        kalahRepository.insert(games);
+        return CompletableFuture.completedFuture(null);
+    }
+}
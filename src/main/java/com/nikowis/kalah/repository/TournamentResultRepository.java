@@ -0,0 +1,7 @@
+package com.nikowis.kalah.repository;
+
+import com.nikowis.kalah.model.TournamentResult;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface TournamentResultRepository extends MongoRepository<TournamentResult, String> {
+}
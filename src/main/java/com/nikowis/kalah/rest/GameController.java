@@ -1,7 +1,14 @@
 package com.nikowis.kalah.rest;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.nikowis.kalah.dto.GameCreatedDTO;
 import com.nikowis.kalah.dto.GameStateDto;
+import com.nikowis.kalah.dto.HintDto;
+import com.nikowis.kalah.dto.MovesResultDto;
+import com.nikowis.kalah.model.Player;
 import com.nikowis.kalah.service.GameService;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -9,60 +16,249 @@ import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping(GameController.GAMES_ENDPOINT)
 public class GameController {
 
     public static final String GAMES_ENDPOINT = "/games";
     public static final String GAME_ID_VAR = "gameId";
     public static final String PIT_ID_VAR = "pitId";
+    public static final String BATCH_PATH = "/batch";
+    public static final String BATCH_ENDPOINT = GAMES_ENDPOINT + BATCH_PATH;
+    public static final String COUNT_PARAM = "count";
+    public static final String GAME_PATH = "/{" + GAME_ID_VAR + "}";
+    public static final String GAME_ENDPOINT = GAMES_ENDPOINT + GAME_PATH;
+    public static final String EVENTS_PATH = "/{" + GAME_ID_VAR + "}/events";
+    public static final String EVENTS_ENDPOINT = GAMES_ENDPOINT + EVENTS_PATH;
+    public static final String HINT_PATH = "/{" + GAME_ID_VAR + "}/hint";
+    public static final String HINT_ENDPOINT = GAMES_ENDPOINT + HINT_PATH;
+    public static final String DEPTH_PARAM = "depth";
+    public static final String BOT_PARAM = "bot";
+    public static final String PITS_PARAM = "pits";
+    public static final String SEEDS_PARAM = "seeds";
     public static final String MOVE_PATH = "/{" + GAME_ID_VAR + "}/pits/{" + PIT_ID_VAR + "}";
     public static final String MOVE_ENDPOINT = GAMES_ENDPOINT + MOVE_PATH;
+    public static final String MOVES_PATH = "/{" + GAME_ID_VAR + "}/moves";
+    public static final String MOVES_ENDPOINT = GAMES_ENDPOINT + MOVES_PATH;
 
-    private final String serverAddress;
-    private final String serverPort;
+    private final String gameUrlPrefix;
     private final GameService gameService;
+    private final GameEventBroadcaster gameEventBroadcaster;
+    private final ObjectWriter ndjsonWriter;
 
     @Autowired
-    public GameController(GameService gameService, @Value("${server.address}") String serverAddress, @Value("${server.port}") String serverPort) {
+    public GameController(GameService gameService, GameEventBroadcaster gameEventBroadcaster, ObjectMapper objectMapper,
+                          @Value("${server.address}") String serverAddress, @Value("${server.port}") String serverPort) {
         this.gameService = gameService;
-        this.serverAddress = serverAddress;
-        this.serverPort = serverPort;
+        this.gameEventBroadcaster = gameEventBroadcaster;
+        this.gameUrlPrefix = toGameUrlPrefix(serverAddress, serverPort);
+        this.ndjsonWriter = objectMapper.writerFor(GameCreatedDTO.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n");
     }
 
     @ApiResponses(value = {
             @ApiResponse(code = 201, message = "The game was created successfully"),
+            @ApiResponse(code = 400, message = "The variant is not supported", response = RestExceptionHandler.ErrorMessageDTO.class),
             @ApiResponse(code = 404, message = "The game does not exist"),
     })
-    @ApiOperation(value = "Create a new game.", notes = "Returns the created game id to use in subsequent requests.")
+    @ApiOperation(value = "Create a new game.", notes = "Returns the created game id to use in subsequent requests. "
+            + "When a bot player is given its moves are made by the computer in reply to the moves of the other player, "
+            + "which is only possible in the standard game of 6 pits and 6 seeds.")
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public GameCreatedDTO createGame() {
-        GameCreatedDTO game = gameService.createGame();
-        game.setUrl(getGameUrl(game.getId()));
-        return game;
+    public CompletableFuture<GameCreatedDTO> createGame(@ApiParam(value = "Player moved by the computer", example = "P2") @RequestParam(value = BOT_PARAM, required = false) Player bot
+            , @ApiParam(value = "Regular pits per player, 4 to 8", example = "6") @RequestParam(value = PITS_PARAM, defaultValue = "6") int pits
+            , @ApiParam(value = "Seeds every pit starts with, 3 to 6", example = "6") @RequestParam(value = SEEDS_PARAM, defaultValue = "6") int seeds
+    ) {
+        return gameService.createGame(bot, pits, seeds).thenApply(game -> {
+            game.setUrl(getGameUrl(game.getId()));
+            return game;
+        });
+    }
+
+    @ApiResponses(value = {
+            @ApiResponse(code = 201, message = "The games were created successfully"),
+            @ApiResponse(code = 400, message = "The count is out of the allowed range", response = RestExceptionHandler.ErrorMessageDTO.class),
+    })
+    @ApiOperation(value = "Create many new games at once.", notes = "All games are stored with a single write.")
+    @PostMapping(path = BATCH_PATH, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public CompletableFuture<List<GameCreatedDTO>> createGames(@ApiParam(value = "Number of games to create", required = true, example = "100") @RequestParam(COUNT_PARAM) int count) {
+        return gameService.createGames(count).thenApply(games -> {
+            games.forEach(game -> game.setUrl(getGameUrl(game.getId())));
+            return games;
+        });
+    }
+
+    @ApiOperation(value = "Create many new games at once, streamed as newline delimited JSON.", notes = "All games are stored with a single write.")
+    @PostMapping(path = BATCH_PATH, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> createGamesStream(@ApiParam(value = "Number of games to create", required = true, example = "100") @RequestParam(COUNT_PARAM) int count) {
+        return gameService.createGames(count).thenApply(games -> ResponseEntity
+                .status(HttpStatus.CREATED)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> {
+                    try (SequenceWriter sequence = ndjsonWriter.writeValues(out)) {
+                        for (GameCreatedDTO game : games) {
+                            game.setUrl(getGameUrl(game.getId()));
+                            sequence.write(game);
+                        }
+                    }
+                    out.write('\n');
+                }));
+    }
+
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "The current game state is returned"),
+            @ApiResponse(code = 304, message = "The game did not change since the state with the given ETag"),
+            @ApiResponse(code = 404, message = "The game does not exist", response = RestExceptionHandler.ErrorMessageDTO.class),
+    })
+    @ApiOperation(value = "Get the state of an existing game.",
+            notes = "The ETag changes with every move, send it back in If-None-Match to poll without transferring an unchanged game.")
+    @GetMapping(path = GAME_PATH)
+    public CompletableFuture<ResponseEntity<GameStateDto>> getGame(@ApiParam(value = "The game id", required = true, example = "6117e3d3f86b8c0285711b65") @PathVariable(GAME_ID_VAR) String gameId
+            , @ApiParam(value = "ETag of the state the client already has") @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        if (ifNoneMatch == null) {
+            return getGameState(gameId);
+        }
+        return gameService.getMoveCount(gameId).thenCompose(moveCount -> {
+            String eTag = toETag(moveCount);
+            if (eTagMatches(ifNoneMatch, eTag)) {
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(eTag)
+                        .cacheControl(CacheControl.noCache())
+                        .build());
+            }
+            return getGameState(gameId);
+        });
+    }
+
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "The suggested move is returned"),
+            @ApiResponse(code = 400, message = "The game is finished, not the standard game or the depth is not positive", response = RestExceptionHandler.ErrorMessageDTO.class),
+            @ApiResponse(code = 404, message = "The game does not exist", response = RestExceptionHandler.ErrorMessageDTO.class),
+    })
+    @ApiOperation(value = "Suggest a move for the player whose turn it is.",
+            notes = "The search deepens until the given depth or its time budget is used up, the depth actually searched is returned.")
+    @GetMapping(path = HINT_PATH)
+    public CompletableFuture<HintDto> getHint(@ApiParam(value = "The game id", required = true, example = "6117e3d3f86b8c0285711b65") @PathVariable(GAME_ID_VAR) String gameId
+            , @ApiParam(value = "Maximum search depth in plies", example = "12") @RequestParam(value = DEPTH_PARAM, required = false) Integer depth
+    ) {
+        return gameService.getHint(gameId, depth);
+    }
+
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "The stream of game states, starting with the current one"),
+            @ApiResponse(code = 404, message = "The game does not exist", response = RestExceptionHandler.ErrorMessageDTO.class),
+    })
+    @ApiOperation(value = "Subscribe to the states of an existing game as Server-Sent Events.",
+            notes = "A state event is sent after every move, its id is the move count. Clients that do not keep up are disconnected.")
+    @GetMapping(path = EVENTS_PATH, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public CompletableFuture<ResponseEntity<ResponseBodyEmitter>> subscribe(@ApiParam(value = "The game id", required = true, example = "6117e3d3f86b8c0285711b65") @PathVariable(GAME_ID_VAR) String gameId) {
+        // subscribe before reading the state, so no move can fall between the two
+        GameEventBroadcaster.Subscriber subscriber = gameEventBroadcaster.subscribe(gameId);
+        return gameService.getGame(gameId).handle((state, e) -> {
+            if (e != null) {
+                gameEventBroadcaster.unsubscribe(subscriber);
+                throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+            }
+            gameEventBroadcaster.sendInitialState(subscriber, state);
+            return ResponseEntity.ok()
+                    .contentType(GameEventBroadcaster.EVENT_STREAM)
+                    .cacheControl(CacheControl.noStore())
+                    .body(subscriber.getEmitter());
+        });
+    }
+
+    private CompletableFuture<ResponseEntity<GameStateDto>> getGameState(String gameId) {
+        return gameService.getGame(gameId).thenApply(gameState -> {
+            gameState.setUrl(getGameUrl(gameState.getId()));
+            return ResponseEntity.ok()
+                    .eTag(toETag(gameState.getMoveCount()))
+                    .cacheControl(CacheControl.noCache())
+                    .body(gameState);
+        });
+    }
+
+    static String toETag(long moveCount) {
+        return "\"" + moveCount + "\"";
+    }
+
+    /**
+     * Weak comparison of the {@code If-None-Match} list against the current tag, as RFC 7232 requires for it.
+     */
+    static boolean eTagMatches(String ifNoneMatch, String eTag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "The move was valid and the new game state is returned"),
             @ApiResponse(code = 400, message = "The move was not valid", response = RestExceptionHandler.ErrorMessageDTO.class),
             @ApiResponse(code = 404, message = "The game does not exist"),
+            @ApiResponse(code = 409, message = "The game was changed concurrently and the move could not be applied", response = RestExceptionHandler.ErrorMessageDTO.class),
+            @ApiResponse(code = 503, message = "Too many moves are waiting for the game's stripe", response = RestExceptionHandler.ErrorMessageDTO.class),
     })
     @ApiOperation(value = "Make a move in an existing game.")
     @PutMapping(path = MOVE_PATH)
-    public GameStateDto makeAMove(@ApiParam(value = "The game id", required = true, example = "6117e3d3f86b8c0285711b65") @PathVariable(GAME_ID_VAR) String gameId
-            , @ApiParam(value = "The selected pit: 1-6 for Player1 and 8-13 for Player2", required = true, example = "3") @PathVariable(PIT_ID_VAR) Integer pitId
+    public CompletableFuture<GameStateDto> makeAMove(@ApiParam(value = "The game id", required = true, example = "6117e3d3f86b8c0285711b65") @PathVariable(GAME_ID_VAR) String gameId
+            , @ApiParam(value = "The selected pit: 1-6 for Player1 and 8-13 for Player2 in the standard game", required = true, example = "3") @PathVariable(PIT_ID_VAR) Integer pitId
     ) {
-        GameStateDto gameState = gameService.makeAMove(gameId, pitId);
-        gameState.setUrl(getGameUrl(gameState.getId()));
-        return gameState;
+        return gameService.makeAMove(gameId, pitId).thenApply(gameState -> {
+            gameState.setUrl(getGameUrl(gameState.getId()));
+            return gameState;
+        });
+    }
+
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "The valid moves were applied and the new game state is returned"),
+            @ApiResponse(code = 400, message = "The first move was not valid", response = RestExceptionHandler.ErrorMessageDTO.class),
+            @ApiResponse(code = 404, message = "The game does not exist"),
+            @ApiResponse(code = 409, message = "The game was changed concurrently and the moves could not be applied", response = RestExceptionHandler.ErrorMessageDTO.class),
+            @ApiResponse(code = 503, message = "Too many moves are waiting for the game's stripe", response = RestExceptionHandler.ErrorMessageDTO.class),
+    })
+    @ApiOperation(value = "Make a sequence of moves in an existing game.",
+            notes = "Moves are applied in order until the first invalid one, whose index is returned. The game is loaded and saved once.")
+    @PutMapping(path = MOVES_PATH)
+    public CompletableFuture<MovesResultDto> makeMoves(@ApiParam(value = "The game id", required = true, example = "6117e3d3f86b8c0285711b65") @PathVariable(GAME_ID_VAR) String gameId
+            , @ApiParam(value = "The selected pits in order", required = true, example = "[1, 3]") @RequestBody int[] pitIds
+    ) {
+        return gameService.makeMoves(gameId, pitIds).thenApply(gameState -> {
+            gameState.setUrl(getGameUrl(gameState.getId()));
+            return gameState;
+        });
     }
 
     private String getGameUrl(String id) {
-        return String.format("http://%s:%s/%s/%s", serverAddress, serverPort, GAMES_ENDPOINT, id);
+        return gameUrlPrefix + id;
+    }
+
+    static String toGameUrlPrefix(String serverAddress, String serverPort) {
+        return String.format("http://%s:%s/%s/", serverAddress, serverPort, GAMES_ENDPOINT);
     }
 
 }
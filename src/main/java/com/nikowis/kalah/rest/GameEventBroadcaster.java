@@ -0,0 +1,257 @@
+package com.nikowis.kalah.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nikowis.kalah.dto.GameStateDto;
+import com.nikowis.kalah.service.GameStateListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes game states to Server-Sent Events subscribers of the game.
+ * <p>
+ * Every state is serialised into a complete event frame once and the same bytes are queued for all subscribers.
+ * Each subscriber has a buffer of {@code kalah.events.buffer-size} frames drained by a pool of
+ * {@code kalah.events.sender-threads} threads, so a slow client never holds up moves, and a subscriber whose buffer
+ * is full is disconnected. A sender thread writes at most one buffer of frames before moving on to the next
+ * subscriber. A heartbeat comment is queued every {@code kalah.events.heartbeat-interval} to keep idle connections
+ * open and to detect dead ones. A subscriber whose write blocks for longer than {@code kalah.events.send-timeout} is
+ * disconnected and its sender thread interrupted, so stalled clients cannot occupy all sender threads.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+public class GameEventBroadcaster implements GameStateListener {
+
+    static final MediaType EVENT_STREAM = new MediaType(MediaType.TEXT_EVENT_STREAM, StandardCharsets.UTF_8);
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final String gameUrlPrefix;
+    private final long sendTimeoutNanos;
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService sender;
+    private final ScheduledExecutorService heartbeat;
+
+    @Autowired
+    public GameEventBroadcaster(ObjectMapper objectMapper,
+                                @Value("${kalah.events.buffer-size}") int bufferSize,
+                                @Value("${kalah.events.heartbeat-interval}") Duration heartbeatInterval,
+                                @Value("${kalah.events.timeout}") Duration timeout,
+                                @Value("${kalah.events.sender-threads}") int senderThreads,
+                                @Value("${kalah.events.send-timeout}") Duration sendTimeout,
+                                @Value("${server.address}") String serverAddress, @Value("${server.port}") String serverPort) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.gameUrlPrefix = GameController.toGameUrlPrefix(serverAddress, serverPort);
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        // a subscriber has at most one drain task queued, so the task queue is bounded by the subscriber count
+        this.sender = Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread thread = new Thread(r, "game-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "game-events-heartbeat"));
+        this.heartbeat.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatInterval.toMillis(), heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+        long stallCheckMillis = Math.max(1, sendTimeout.toMillis() / 2);
+        this.heartbeat.scheduleWithFixedDelay(this::disconnectStalled, stallCheckMillis, stallCheckMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registers a new subscriber of the game, it receives no events until {@link #sendInitialState} is called.
+     */
+    public Subscriber subscribe(String gameId) {
+        Subscriber subscriber = new Subscriber(gameId, new ResponseBodyEmitter(timeoutMillis), bufferSize);
+        subscriber.emitter.onCompletion(() -> unsubscribe(subscriber));
+        subscriber.emitter.onTimeout(() -> unsubscribe(subscriber));
+        subscriber.emitter.onError(e -> unsubscribe(subscriber));
+        subscribers.computeIfAbsent(gameId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        return subscriber;
+    }
+
+    /**
+     * Starts the stream of a subscriber with the state of the game it subscribed to, unless a newer one was pushed already.
+     */
+    public void sendInitialState(Subscriber subscriber, GameStateDto state) {
+        offer(subscriber, state.getMoveCount(), toFrame(state));
+    }
+
+    public void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.gameId, (id, gameSubscribers) -> {
+            gameSubscribers.remove(subscriber);
+            return gameSubscribers.isEmpty() ? null : gameSubscribers;
+        });
+    }
+
+    @Override
+    public void onGameStateChanged(GameStateDto state) {
+        Set<Subscriber> gameSubscribers = subscribers.get(state.getId());
+        if (gameSubscribers == null) {
+            return;
+        }
+        byte[] frame = toFrame(state);
+        for (Subscriber subscriber : gameSubscribers) {
+            offer(subscriber, state.getMoveCount(), frame);
+        }
+    }
+
+    /**
+     * @return number of open subscriptions of all games
+     */
+    public int getSubscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private byte[] toFrame(GameStateDto state) {
+        state.setUrl(gameUrlPrefix + state.getId());
+        try {
+            String json = objectMapper.writeValueAsString(state);
+            return ("id: " + state.getMoveCount() + "\nevent: state\ndata: " + json + "\n\n").getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Game state is not serializable", e);
+        }
+    }
+
+    private void offer(Subscriber subscriber, long moveCount, byte[] frame) {
+        // states may be acknowledged out of order, a subscriber only ever moves forward
+        if (subscriber.lastMoveCount.getAndAccumulate(moveCount, Math::max) >= moveCount) {
+            return;
+        }
+        enqueue(subscriber, frame);
+    }
+
+    private void enqueue(Subscriber subscriber, byte[] frame) {
+        if (!subscriber.buffer.offer(frame)) {
+            log.debug("Disconnecting slow subscriber of game {}", subscriber.gameId);
+            unsubscribe(subscriber);
+            subscriber.emitter.complete();
+            return;
+        }
+        if (subscriber.draining.compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        do {
+            byte[] frame;
+            int sent = 0;
+            while ((frame = subscriber.buffer.poll()) != null) {
+                subscriber.startSend();
+                try {
+                    subscriber.emitter.send(frame, EVENT_STREAM);
+                } catch (IOException | IllegalStateException e) {
+                    unsubscribe(subscriber);
+                    subscriber.buffer.clear();
+                    break;
+                } finally {
+                    subscriber.endSend();
+                }
+                if (subscriber.stalled) {
+                    break;
+                }
+                if (++sent == bufferSize && !subscriber.buffer.isEmpty()) {
+                    // give the other subscribers a turn, the draining flag stays set until the buffer is empty
+                    sender.execute(() -> drain(subscriber));
+                    return;
+                }
+            }
+            subscriber.draining.set(false);
+            // a frame queued after the last poll but before the flag was cleared did not schedule a drain
+        } while (!subscriber.buffer.isEmpty() && subscriber.draining.compareAndSet(false, true));
+    }
+
+    private void sendHeartbeats() {
+        for (Set<Subscriber> gameSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : gameSubscribers) {
+                enqueue(subscriber, HEARTBEAT);
+            }
+        }
+    }
+
+    private void disconnectStalled() {
+        long now = System.nanoTime();
+        for (Set<Subscriber> gameSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : gameSubscribers) {
+                if (subscriber.interruptIfStalled(now, sendTimeoutNanos)) {
+                    log.debug("Disconnecting stalled subscriber of game {}", subscriber.gameId);
+                    unsubscribe(subscriber);
+                    subscriber.buffer.clear();
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeat.shutdownNow();
+        subscribers.values().forEach(gameSubscribers -> gameSubscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        sender.shutdown();
+    }
+
+    public static class Subscriber {
+
+        private final String gameId;
+        private final ResponseBodyEmitter emitter;
+        private final BlockingQueue<byte[]> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicLong lastMoveCount = new AtomicLong(-1);
+        /**
+         * Thread blocked in a write to this subscriber, guarded by the subscriber so that an interrupt can only
+         * reach the thread while it is still writing here.
+         */
+        private Thread sendingThread;
+        private long sendStartedNanos;
+        private volatile boolean stalled;
+
+        Subscriber(String gameId, ResponseBodyEmitter emitter, int bufferSize) {
+            this.gameId = gameId;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        public ResponseBodyEmitter getEmitter() {
+            return emitter;
+        }
+
+        synchronized void startSend() {
+            sendingThread = Thread.currentThread();
+            sendStartedNanos = System.nanoTime();
+        }
+
+        synchronized void endSend() {
+            sendingThread = null;
+            if (stalled) {
+                // the interrupt was meant for the write to this subscriber only
+                Thread.interrupted();
+            }
+        }
+
+        synchronized boolean interruptIfStalled(long now, long sendTimeoutNanos) {
+            if (sendingThread == null || stalled || now - sendStartedNanos < sendTimeoutNanos) {
+                return false;
+            }
+            stalled = true;
+            sendingThread.interrupt();
+            return true;
+        }
+    }
+}
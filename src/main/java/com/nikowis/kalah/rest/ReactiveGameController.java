@@ -0,0 +1,126 @@
+package com.nikowis.kalah.rest;
+
+import com.nikowis.kalah.dto.GameCreatedDTO;
+import com.nikowis.kalah.dto.GameStateDto;
+import com.nikowis.kalah.dto.HintDto;
+import com.nikowis.kalah.dto.MovesResultDto;
+import com.nikowis.kalah.model.Player;
+import com.nikowis.kalah.service.ReactiveGameService;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static com.nikowis.kalah.rest.GameController.*;
+
+/**
+ * WebFlux variant of {@link GameController} serving the same routes except the event stream, enabled with the
+ * {@code reactive} profile. Errors are mapped by the shared {@link RestExceptionHandler}.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping(GameController.GAMES_ENDPOINT)
+public class ReactiveGameController {
+
+    private final String gameUrlPrefix;
+    private final ReactiveGameService gameService;
+
+    @Autowired
+    public ReactiveGameController(ReactiveGameService gameService, @Value("${server.address}") String serverAddress, @Value("${server.port}") String serverPort) {
+        this.gameService = gameService;
+        this.gameUrlPrefix = String.format("http://%s:%s/%s/", serverAddress, serverPort, GAMES_ENDPOINT);
+    }
+
+    @ApiOperation(value = "Create a new game.", notes = "Returns the created game id to use in subsequent requests. "
+            + "When a bot player is given its moves are made by the computer in reply to the moves of the other player, "
+            + "which is only possible in the standard game of 6 pits and 6 seeds.")
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<GameCreatedDTO> createGame(@ApiParam(value = "Player moved by the computer", example = "P2") @RequestParam(value = BOT_PARAM, required = false) Player bot
+            , @ApiParam(value = "Regular pits per player, 4 to 8", example = "6") @RequestParam(value = PITS_PARAM, defaultValue = "6") int pits
+            , @ApiParam(value = "Seeds every pit starts with, 3 to 6", example = "6") @RequestParam(value = SEEDS_PARAM, defaultValue = "6") int seeds
+    ) {
+        return gameService.createGame(bot, pits, seeds).map(this::withUrl);
+    }
+
+    @ApiOperation(value = "Create many new games at once.", notes = "All games are stored with a single write, "
+            + "the games are streamed one per line for Accept: application/x-ndjson.")
+    @PostMapping(path = BATCH_PATH, produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @ResponseStatus(HttpStatus.CREATED)
+    public Flux<GameCreatedDTO> createGames(@ApiParam(value = "Number of games to create", required = true, example = "100") @RequestParam(COUNT_PARAM) int count) {
+        return gameService.createGames(count).map(this::withUrl);
+    }
+
+    @ApiOperation(value = "Get the state of an existing game.",
+            notes = "The ETag changes with every move, send it back in If-None-Match to poll without transferring an unchanged game.")
+    @GetMapping(path = GAME_PATH)
+    public Mono<ResponseEntity<GameStateDto>> getGame(@ApiParam(value = "The game id", required = true) @PathVariable(GAME_ID_VAR) String gameId
+            , @ApiParam(value = "ETag of the state the client already has") @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        if (ifNoneMatch == null) {
+            return getGameState(gameId);
+        }
+        return gameService.getMoveCount(gameId).flatMap(moveCount -> {
+            String eTag = GameController.toETag(moveCount);
+            if (GameController.eTagMatches(ifNoneMatch, eTag)) {
+                return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(eTag)
+                        .cacheControl(CacheControl.noCache())
+                        .<GameStateDto>build());
+            }
+            return getGameState(gameId);
+        });
+    }
+
+    private Mono<ResponseEntity<GameStateDto>> getGameState(String gameId) {
+        return gameService.getGame(gameId).map(gameState -> ResponseEntity.ok()
+                .eTag(GameController.toETag(gameState.getMoveCount()))
+                .cacheControl(CacheControl.noCache())
+                .body(withUrl(gameState)));
+    }
+
+    @ApiOperation(value = "Suggest a move for the player whose turn it is.",
+            notes = "The search deepens until the given depth or its time budget is used up, the depth actually searched is returned.")
+    @GetMapping(path = HINT_PATH)
+    public Mono<HintDto> getHint(@ApiParam(value = "The game id", required = true) @PathVariable(GAME_ID_VAR) String gameId
+            , @ApiParam(value = "Maximum search depth in plies", example = "12") @RequestParam(value = DEPTH_PARAM, required = false) Integer depth
+    ) {
+        return gameService.getHint(gameId, depth);
+    }
+
+    @ApiOperation(value = "Make a move in an existing game.")
+    @PutMapping(path = MOVE_PATH)
+    public Mono<GameStateDto> makeAMove(@ApiParam(value = "The game id", required = true) @PathVariable(GAME_ID_VAR) String gameId
+            , @ApiParam(value = "The selected pit: 1-6 for Player1 and 8-13 for Player2 in the standard game", required = true, example = "3") @PathVariable(PIT_ID_VAR) Integer pitId
+    ) {
+        return gameService.makeAMove(gameId, pitId).map(this::withUrl);
+    }
+
+    @ApiOperation(value = "Make a sequence of moves in an existing game.",
+            notes = "Moves are applied in order until the first invalid one, whose index is returned. The game is loaded and saved once.")
+    @PutMapping(path = MOVES_PATH)
+    public Mono<MovesResultDto> makeMoves(@ApiParam(value = "The game id", required = true) @PathVariable(GAME_ID_VAR) String gameId
+            , @ApiParam(value = "The selected pits in order", required = true, example = "[1, 3]") @RequestBody int[] pitIds
+    ) {
+        return gameService.makeMoves(gameId, pitIds).map(this::withUrl);
+    }
+
+    private GameCreatedDTO withUrl(GameCreatedDTO game) {
+        game.setUrl(gameUrlPrefix + game.getId());
+        return game;
+    }
+
+    private <T extends GameStateDto> T withUrl(T gameState) {
+        gameState.setUrl(gameUrlPrefix + gameState.getId());
+        return gameState;
+    }
+}
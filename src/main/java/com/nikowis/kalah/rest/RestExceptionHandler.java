@@ -1,26 +1,56 @@
 package com.nikowis.kalah.rest;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nikowis.kalah.exception.GameConflictException;
 import com.nikowis.kalah.exception.GameException;
 import com.nikowis.kalah.exception.GameNotFoundException;
+import com.nikowis.kalah.exception.InvalidGameCountException;
+import com.nikowis.kalah.exception.InvalidHintDepthException;
+import com.nikowis.kalah.exception.InvalidVariantException;
+import com.nikowis.kalah.exception.ServerBusyException;
+import com.nikowis.kalah.exception.VariantNotSupportedException;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
-import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 @ControllerAdvice
 public class RestExceptionHandler {
 
     @Autowired
     private MessageSource messageSource;
 
+    /**
+     * Locales come from the client's Accept-Language header, so only the most recently used ones are kept.
+     */
+    private static final int MAX_CACHED_LOCALES = 16;
+
+    private final Cache<Locale, Map<Class<?>, ErrorMessageDTO>> responseBodies = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_LOCALES)
+            .build();
+
     @ExceptionHandler(value = {GameException.class})
-    protected ResponseEntity<ErrorMessageDTO> handleGameException(GameException ex) {
-        ErrorMessageDTO body = getExceptionResponseBody(ex);
+    protected ResponseEntity<ErrorMessageDTO> handleGameException(GameException ex, Locale locale) {
+        ErrorMessageDTO body = getExceptionResponseBody(ex, locale);
+
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(body);
+    }
+
+    @ExceptionHandler(value = {InvalidGameCountException.class, InvalidHintDepthException.class, InvalidVariantException.class,
+            VariantNotSupportedException.class})
+    protected ResponseEntity<ErrorMessageDTO> handleInvalidParameterException(RuntimeException ex, Locale locale) {
+        ErrorMessageDTO body = getExceptionResponseBody(ex, locale);
 
         return ResponseEntity
                 .status(HttpStatus.BAD_REQUEST)
@@ -28,18 +58,41 @@ public class RestExceptionHandler {
     }
 
     @ExceptionHandler(value = {GameNotFoundException.class})
-    protected ResponseEntity<ErrorMessageDTO> handleGameNotFoundException(GameNotFoundException ex) {
-        ErrorMessageDTO body = getExceptionResponseBody(ex);
+    protected ResponseEntity<ErrorMessageDTO> handleGameNotFoundException(GameNotFoundException ex, Locale locale) {
+        ErrorMessageDTO body = getExceptionResponseBody(ex, locale);
 
         return ResponseEntity
                 .status(HttpStatus.NOT_FOUND)
                 .body(body);
     }
 
-    private ErrorMessageDTO getExceptionResponseBody(Exception ex) {
-        return new ErrorMessageDTO(
-                messageSource.getMessage(ex.getClass().getSimpleName(), null, LocaleContextHolder.getLocale())
-        );
+    @ExceptionHandler(value = {GameConflictException.class})
+    protected ResponseEntity<ErrorMessageDTO> handleGameConflictException(GameConflictException ex, Locale locale) {
+        ErrorMessageDTO body = getExceptionResponseBody(ex, locale);
+
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(body);
+    }
+
+    @ExceptionHandler(value = {ServerBusyException.class})
+    protected ResponseEntity<ErrorMessageDTO> handleServerBusyException(ServerBusyException ex, Locale locale) {
+        ErrorMessageDTO body = getExceptionResponseBody(ex, locale);
+
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(body);
+    }
+
+    /**
+     * Bodies are immutable and depend only on the exception type and the locale, so each is built once.
+     * The locale is resolved from the request by Spring MVC and from the {@code ServerWebExchange} by WebFlux.
+     */
+    private ErrorMessageDTO getExceptionResponseBody(Exception ex, Locale locale) {
+        return responseBodies.get(locale, l -> new ConcurrentHashMap<>())
+                .computeIfAbsent(ex.getClass(), type -> new ErrorMessageDTO(
+                        messageSource.getMessage(type.getSimpleName(), null, locale)
+                ));
     }
 
     @Getter
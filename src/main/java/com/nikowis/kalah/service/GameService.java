@@ -2,9 +2,25 @@ package com.nikowis.kalah.service;
 
 import com.nikowis.kalah.dto.GameCreatedDTO;
 import com.nikowis.kalah.dto.GameStateDto;
+import com.nikowis.kalah.dto.HintDto;
+import com.nikowis.kalah.dto.MovesResultDto;
+import com.nikowis.kalah.model.Player;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface GameService {
-    GameCreatedDTO createGame();
+    CompletableFuture<GameCreatedDTO> createGame(Player bot, int pits, int seeds);
+
+    CompletableFuture<List<GameCreatedDTO>> createGames(int count);
+
+    CompletableFuture<GameStateDto> getGame(String gameId);
+
+    CompletableFuture<Long> getMoveCount(String gameId);
+
+    CompletableFuture<HintDto> getHint(String gameId, Integer depth);
+
+    CompletableFuture<GameStateDto> makeAMove(String gameId, Integer pitId);
 
-    GameStateDto makeAMove(String gameId, Integer pitId);
+    CompletableFuture<MovesResultDto> makeMoves(String gameId, int[] pitIds);
 }
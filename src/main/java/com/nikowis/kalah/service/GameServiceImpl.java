@@ -1,46 +1,317 @@
 package com.nikowis.kalah.service;
 
+import com.nikowis.kalah.ai.KalahAi;
+import com.nikowis.kalah.ai.SearchResult;
 import com.nikowis.kalah.dto.GameCreatedDTO;
 import com.nikowis.kalah.dto.GameStateDto;
+import com.nikowis.kalah.dto.HintDto;
+import com.nikowis.kalah.dto.MovesResultDto;
+import com.nikowis.kalah.engine.KalahEngine;
+import com.nikowis.kalah.exception.GameConflictException;
+import com.nikowis.kalah.exception.GameFinishedException;
 import com.nikowis.kalah.exception.GameNotFoundException;
+import com.nikowis.kalah.exception.InvalidGameCountException;
+import com.nikowis.kalah.exception.InvalidHintDepthException;
+import com.nikowis.kalah.exception.InvalidVariantException;
+import com.nikowis.kalah.exception.VariantNotSupportedException;
+import com.nikowis.kalah.metrics.GameMetrics;
 import com.nikowis.kalah.model.Kalah;
+import com.nikowis.kalah.model.MoveResult;
+import com.nikowis.kalah.model.Player;
+import com.nikowis.kalah.repository.GameCache;
+import com.nikowis.kalah.repository.GameWriter;
 import com.nikowis.kalah.repository.KalahRepository;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
 @Service
+@Profile("!reactive")
 class GameServiceImpl implements GameService {
 
     private final KalahRepository kalahRepository;
+    private final GameCache gameCache;
+    private final GameWriter gameWriter;
+    private final MoveExecutor moveExecutor;
+    private final int maxMoveRetries;
+    private final int maxBatchCount;
+    private final List<GameStateListener> gameStateListeners;
+    private final GameMetrics gameMetrics;
+    private final KalahAi kalahAi;
 
     @Autowired
-    public GameServiceImpl(KalahRepository kalahRepository) {
+    public GameServiceImpl(KalahRepository kalahRepository, GameCache gameCache, GameWriter gameWriter, MoveExecutor moveExecutor,
+                           List<GameStateListener> gameStateListeners, GameMetrics gameMetrics, KalahAi kalahAi,
+                           @Value("${kalah.persistence.max-retries}") int maxMoveRetries,
+                           @Value("${kalah.games.batch.max-count}") int maxBatchCount) {
         this.kalahRepository = kalahRepository;
+        this.gameCache = gameCache;
+        this.gameWriter = gameWriter;
+        this.moveExecutor = moveExecutor;
+        this.maxMoveRetries = maxMoveRetries;
+        this.maxBatchCount = maxBatchCount;
+        this.gameStateListeners = gameStateListeners;
+        this.gameMetrics = gameMetrics;
+        this.kalahAi = kalahAi;
+    }
+
+    /**
+     * @param bot   player moved by the computer or {@code null}, when it is {@link Player#P1} its first moves are made
+     *              before the game is returned, only in the standard game
+     * @param pits  regular pits per player
+     * @param seeds stones every regular pit starts with
+     */
+    @Override
+    public CompletableFuture<GameCreatedDTO> createGame(Player bot, int pits, int seeds) {
+        if (!KalahEngine.isSupported(pits, seeds)) {
+            throw new InvalidVariantException();
+        }
+        KalahEngine variant = KalahEngine.of(pits, seeds);
+        if (bot != null && variant != KalahEngine.STANDARD) {
+            throw new VariantNotSupportedException();
+        }
+        String gameId = new ObjectId().toHexString();
+        return moveExecutor.submit(gameId, () -> {
+            Kalah kalah = new Kalah(gameId, variant);
+            kalah.setBot(bot);
+
+            GameCreatedDTO dto = new GameCreatedDTO();
+            dto.setId(kalah.getId());
+            GameStateDto state = toGameStateDto(new GameStateDto(), kalah);
+            return save(gameId, kalah).thenCompose(written -> {
+                gameMetrics.gamesCreated(1);
+                return replyAsBot(state);
+            }).thenApply(replied -> dto);
+        }).thenCompose(Function.identity());
+    }
+
+    /**
+     * Creates the games with a single write. They are not cached, so a large batch does not push out games being played.
+     */
+    @Override
+    public CompletableFuture<List<GameCreatedDTO>> createGames(int count) {
+        if (count < 1 || count > maxBatchCount) {
+            throw new InvalidGameCountException();
+        }
+        List<Kalah> games = new ArrayList<>(count);
+        List<GameCreatedDTO> dtos = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Kalah kalah = new Kalah(new ObjectId().toHexString());
+            games.add(kalah);
+
+            GameCreatedDTO dto = new GameCreatedDTO();
+            dto.setId(kalah.getId());
+            dtos.add(dto);
+        }
+        return gameMetrics.timeSave(() -> gameWriter.writeNew(games)).thenApply(written -> {
+            gameMetrics.gamesCreated(count);
+            return dtos;
+        });
+    }
+
+    @Override
+    public CompletableFuture<GameStateDto> getGame(String gameId) {
+        return moveExecutor.submit(gameId, () -> {
+            Kalah game = gameCache.findById(gameId, this::loadGame).orElseThrow(GameNotFoundException::new);
+            return toGameStateDto(new GameStateDto(), game);
+        });
     }
 
+    /**
+     * Reads the move counter without loading the board when the game is not cached.
+     */
     @Override
-    public GameCreatedDTO createGame() {
-        Kalah kalah = new Kalah();
+    public CompletableFuture<Long> getMoveCount(String gameId) {
+        return moveExecutor.submit(gameId, () -> gameCache.findIfPresent(gameId)
+                .or(() -> gameWriter.findUnflushed(gameId))
+                .map(Kalah::getMoveCount)
+                .or(() -> kalahRepository.findMoveCount(gameId).map(stored -> gameWriter.restoreMoveCount(gameId, stored)))
+                .orElseThrow(GameNotFoundException::new));
+    }
 
-        Kalah saved = kalahRepository.save(kalah);
+    /**
+     * Searches the best move of the player whose turn it is, the search runs off the game's stripe.
+     * Only the standard game is searched.
+     *
+     * @param depth maximum depth in plies or {@code null} for {@code kalah.ai.max-depth}
+     */
+    @Override
+    public CompletableFuture<HintDto> getHint(String gameId, Integer depth) {
+        if (depth != null && depth < 1) {
+            throw new InvalidHintDepthException();
+        }
+        int depthLimit = depth == null ? kalahAi.getMaxDepth() : depth;
+        return moveExecutor.submit(gameId, () -> {
+            Kalah game = gameCache.findById(gameId, this::loadGame).orElseThrow(GameNotFoundException::new);
+            if (game.isGameFinished()) {
+                throw new GameFinishedException();
+            }
+            if (!game.isStandard()) {
+                throw new VariantNotSupportedException();
+            }
+            return kalahAi.bestMove(game.packLow(), game.packHigh(), depthLimit);
+        }).thenCompose(Function.identity()).thenApply(GameServiceImpl::toHintDto);
+    }
 
-        GameCreatedDTO dto = new GameCreatedDTO();
-        dto.setId(saved.getId());
+    static HintDto toHintDto(SearchResult result) {
+        HintDto dto = new HintDto();
+        dto.setPit(result.getMove() + Kalah.FIRST_PIT_IDX);
+        dto.setScore(result.getScore());
+        dto.setDepth(result.getDepth());
         return dto;
     }
 
+    /**
+     * Makes the move and, when the opponent is the computer, its replies, answering with the state after them.
+     */
+    @Override
+    public CompletableFuture<GameStateDto> makeAMove(String gameId, Integer pitId) {
+        return updateGame(gameId, game -> {
+            MoveResult result = isBotsTurn(game) ? MoveResult.NOT_YOUR_PIT : move(game, pitId);
+            if (!result.isValid()) {
+                gameMetrics.invalidMove(result);
+                throw result.toException();
+            }
+            return toGameStateDto(new GameStateDto(), game);
+        }).thenCompose(this::replyAsBot);
+    }
+
+    /**
+     * Applies the moves in order with one load and one save. Moves are applied until the first invalid one,
+     * if already the first move is invalid its exception is thrown and nothing is saved.
+     */
     @Override
-    public GameStateDto makeAMove(String gameId, Integer pitId) {
-        Kalah game = kalahRepository.findById(gameId).orElseThrow(GameNotFoundException::new);
-        game.move(pitId);
-        Kalah savedGame = kalahRepository.save(game);
-        GameStateDto dto = new GameStateDto();
-        dto.setId(savedGame.getId());
-        dto.setGameFinished(savedGame.isGameFinished());
-        dto.setStatus(savedGame.getPits());
-        dto.setWhoseTurn(savedGame.getWhoseTurn());
-        dto.setWinner(savedGame.getWinner());
+    public CompletableFuture<MovesResultDto> makeMoves(String gameId, int[] pitIds) {
+        return updateGame(gameId, game -> {
+            MovesResultDto dto = new MovesResultDto();
+            for (int i = 0; i < pitIds.length; i++) {
+                MoveResult result = isBotsTurn(game) ? MoveResult.NOT_YOUR_PIT : move(game, pitIds[i]);
+                if (!result.isValid()) {
+                    gameMetrics.invalidMove(result);
+                    if (i == 0) {
+                        throw result.toException();
+                    }
+                    dto.setFirstInvalidMove(i);
+                    break;
+                }
+            }
+            return toGameStateDto(dto, game);
+        }).thenCompose(this::replyAsBot);
+    }
+
+    /**
+     * Makes the move and, when it is valid, records it for the {@link GameWriter}.
+     */
+    private MoveResult move(Kalah game, int pit) {
+        MoveResult result = gameMetrics.move(game, pit);
+        if (result.isValid()) {
+            gameWriter.recordMove(game.getId(), pit);
+        }
+        return result;
+    }
+
+    static boolean isBotsTurn(Kalah game) {
+        return game.getBot() != null && game.getBot() == game.getWhoseTurn();
+    }
+
+    /**
+     * Makes the computer's moves while it is its turn. The search runs off the game's stripe from the given state,
+     * its move is only made if nobody moved meanwhile.
+     *
+     * @return the given state if it is not the computer's turn, otherwise the state after its moves
+     */
+    private <T extends GameStateDto> CompletableFuture<T> replyAsBot(T state) {
+        if (state.isGameFinished() || state.getBot() == null || state.getBot() != state.getWhoseTurn()) {
+            return CompletableFuture.completedFuture(state);
+        }
+        Kalah position = new Kalah(state.getId(), state.getStatus(), state.getWhoseTurn(), false, null);
+        return kalahAi.bestMove(position.packLow(), position.packHigh(), kalahAi.getMaxDepth())
+                .thenCompose(best -> updateGame(state.getId(), game -> {
+                    if (game.getMoveCount() == state.getMoveCount()) {
+                        MoveResult result = move(game, best.getMove() + Kalah.FIRST_PIT_IDX);
+                        if (!result.isValid()) {
+                            throw result.toException();
+                        }
+                    }
+                    return toGameStateDto(state, game);
+                }))
+                .thenCompose(this::replyAsBot);
+    }
+
+    /**
+     * Changes the game on its stripe, so changes of one game never run concurrently within this node.
+     * The game is saved only if nobody changed it in the meantime, on a conflict it is reloaded and the change is
+     * retried up to {@code kalah.persistence.max-retries} times.
+     * Once saved the new state is passed to the {@link GameStateListener}s.
+     */
+    private <T> CompletableFuture<T> updateGame(String gameId, Function<Kalah, T> change) {
+        return moveExecutor.submit(gameId, () -> {
+            Kalah game = gameCache.findById(gameId, this::loadGame).orElseThrow(GameNotFoundException::new);
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    boolean wasFinished = game.isGameFinished();
+                    T result = change.apply(game);
+                    Kalah finished = !wasFinished && game.isGameFinished() ? game : null;
+                    GameStateDto state = gameStateListeners.isEmpty() ? null : toGameStateDto(new GameStateDto(), game);
+                    return save(gameId, game).thenApply(written -> {
+                        if (finished != null) {
+                            gameMetrics.gameFinished(finished);
+                        }
+                        if (state != null) {
+                            gameStateListeners.forEach(listener -> listener.onGameStateChanged(state));
+                        }
+                        return result;
+                    });
+                } catch (GameConflictException e) {
+                    if (attempt >= maxMoveRetries) {
+                        throw e;
+                    }
+                    game = loadGame(gameId).orElseThrow(GameNotFoundException::new);
+                }
+            }
+        }).thenCompose(Function.identity());
+    }
+
+    private Optional<Kalah> loadGame(String gameId) {
+        return gameMetrics.timeLoad(() -> gameWriter.findUnflushed(gameId).or(() -> kalahRepository.findById(gameId)).map(gameWriter::restore));
+    }
+
+    static <T extends GameStateDto> T toGameStateDto(T dto, Kalah game) {
+        dto.setId(game.getId());
+        dto.setGameFinished(game.isGameFinished());
+        dto.setStatus(game.getPits());
+        dto.setWhoseTurn(game.getWhoseTurn());
+        dto.setWinner(game.getWinner());
+        dto.setMoveCount(game.getMoveCount());
+        dto.setBot(game.getBot());
 
         return dto;
     }
+
+    /**
+     * Saves the game keeping the cache in step, a game that failed to save is evicted so it gets reloaded.
+     */
+    private CompletableFuture<Void> save(String gameId, Kalah game) {
+        CompletableFuture<Void> written;
+        try {
+            written = gameMetrics.timeSave(() -> gameWriter.write(game));
+        } catch (RuntimeException e) {
+            gameCache.evict(gameId);
+            throw e;
+        }
+        gameCache.put(gameId, game);
+        return written.whenComplete((ignored, e) -> {
+            if (e != null) {
+                gameCache.evict(gameId);
+            }
+        });
+    }
 }
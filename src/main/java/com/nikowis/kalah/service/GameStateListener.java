@@ -0,0 +1,15 @@
+package com.nikowis.kalah.service;
+
+import com.nikowis.kalah.dto.GameStateDto;
+
+/**
+ * Notified with the new state of a game after a change of it was saved.
+ */
+public interface GameStateListener {
+
+    /**
+     * Called once per saved change, possibly on the thread that acknowledged the write and not necessarily
+     * in move order, {@link GameStateDto#getMoveCount()} tells which state is newer.
+     */
+    void onGameStateChanged(GameStateDto state);
+}
@@ -0,0 +1,151 @@
+package com.nikowis.kalah.service;
+
+import com.nikowis.kalah.exception.ServerBusyException;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs all work for a game on one of a fixed number of single threaded stripes, chosen by the game id hash.
+ * Work for the same game is applied in submission order without locking, different games run in parallel.
+ * Each stripe queues at most {@code kalah.moves.queue-capacity} tasks, further work is rejected with a
+ * {@link ServerBusyException} instead of piling up.
+ */
+@Component
+@Profile("!reactive")
+public class MoveExecutor implements MeterBinder {
+
+    private final Stripe[] stripes;
+
+    @Autowired
+    public MoveExecutor(@Value("${kalah.moves.stripes}") int stripeCount,
+                        @Value("${kalah.moves.queue-capacity}") int queueCapacity) {
+        int count = stripeCount > 0 ? stripeCount : Runtime.getRuntime().availableProcessors();
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(i, queueCapacity);
+        }
+    }
+
+    /**
+     * @return future completed with the task result on the game's stripe
+     * @throws ServerBusyException if the stripe's queue is full
+     */
+    public <T> CompletableFuture<T> submit(String gameId, Supplier<T> task) {
+        return stripes[Math.floorMod(gameId.hashCode(), stripes.length)].submit(task);
+    }
+
+    public List<Stripe> getStripes() {
+        return List.of(stripes);
+    }
+
+    /**
+     * Publishes the queue depth, the queueing time and the longest wait of every stripe.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Stripe stripe : stripes) {
+            Tags tags = Tags.of("stripe", String.valueOf(stripe.getIndex()));
+            Gauge.builder("kalah.stripes.queue", stripe, Stripe::getQueueDepth)
+                    .tags(tags)
+                    .description("Tasks waiting for the stripe thread")
+                    .register(registry);
+            FunctionTimer.builder("kalah.stripes.wait", stripe, Stripe::getProcessed, Stripe::getTotalWaitNanos, TimeUnit.NANOSECONDS)
+                    .tags(tags)
+                    .description("Time tasks spent waiting for the stripe thread")
+                    .register(registry);
+            TimeGauge.builder("kalah.stripes.wait.max", stripe, TimeUnit.NANOSECONDS, Stripe::getMaxWaitNanos)
+                    .tags(tags)
+                    .description("Longest time a task waited for the stripe thread")
+                    .register(registry);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        for (Stripe stripe : stripes) {
+            stripe.executor.shutdown();
+        }
+        for (Stripe stripe : stripes) {
+            stripe.executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    public static class Stripe {
+
+        private final int index;
+        private final ThreadPoolExecutor executor;
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        Stripe(int index, int queueCapacity) {
+            this.index = index;
+            this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                    r -> new Thread(r, "moves-" + index),
+                    (r, e) -> {
+                        throw new ServerBusyException();
+                    });
+        }
+
+        <T> CompletableFuture<T> submit(Supplier<T> task) {
+            long submittedAt = System.nanoTime();
+            return CompletableFuture.supplyAsync(() -> {
+                long waitNanos = System.nanoTime() - submittedAt;
+                totalWaitNanos.add(waitNanos);
+                maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+                processed.increment();
+                return task.get();
+            }, executor);
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return tasks waiting for the stripe thread
+         */
+        public int getQueueDepth() {
+            return executor.getQueue().size();
+        }
+
+        /**
+         * @return tasks that started running
+         */
+        public long getProcessed() {
+            return processed.sum();
+        }
+
+        /**
+         * @return total time tasks spent waiting in the queue
+         */
+        public long getTotalWaitNanos() {
+            return totalWaitNanos.sum();
+        }
+
+        /**
+         * @return longest time a task spent waiting in the queue
+         */
+        public long getMaxWaitNanos() {
+            return maxWaitNanos.get();
+        }
+    }
+}
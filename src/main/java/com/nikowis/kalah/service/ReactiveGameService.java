@@ -0,0 +1,28 @@
+package com.nikowis.kalah.service;
+
+import com.nikowis.kalah.dto.GameCreatedDTO;
+import com.nikowis.kalah.dto.GameStateDto;
+import com.nikowis.kalah.dto.HintDto;
+import com.nikowis.kalah.dto.MovesResultDto;
+import com.nikowis.kalah.model.Player;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non blocking counterpart of {@link GameService} used with the {@code reactive} profile.
+ */
+public interface ReactiveGameService {
+    Mono<GameCreatedDTO> createGame(Player bot, int pits, int seeds);
+
+    Flux<GameCreatedDTO> createGames(int count);
+
+    Mono<GameStateDto> getGame(String gameId);
+
+    Mono<Long> getMoveCount(String gameId);
+
+    Mono<HintDto> getHint(String gameId, Integer depth);
+
+    Mono<GameStateDto> makeAMove(String gameId, Integer pitId);
+
+    Mono<MovesResultDto> makeMoves(String gameId, int[] pitIds);
+}
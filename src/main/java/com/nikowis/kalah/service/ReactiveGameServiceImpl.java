@@ -0,0 +1,204 @@
+package com.nikowis.kalah.service;
+
+import com.nikowis.kalah.ai.KalahAi;
+import com.nikowis.kalah.dto.GameCreatedDTO;
+import com.nikowis.kalah.dto.GameStateDto;
+import com.nikowis.kalah.dto.HintDto;
+import com.nikowis.kalah.dto.MovesResultDto;
+import com.nikowis.kalah.engine.KalahEngine;
+import com.nikowis.kalah.exception.GameConflictException;
+import com.nikowis.kalah.exception.GameFinishedException;
+import com.nikowis.kalah.exception.GameNotFoundException;
+import com.nikowis.kalah.exception.InvalidGameCountException;
+import com.nikowis.kalah.exception.InvalidHintDepthException;
+import com.nikowis.kalah.exception.InvalidVariantException;
+import com.nikowis.kalah.exception.VariantNotSupportedException;
+import com.nikowis.kalah.metrics.GameMetrics;
+import com.nikowis.kalah.model.Kalah;
+import com.nikowis.kalah.model.MoveResult;
+import com.nikowis.kalah.model.Player;
+import com.nikowis.kalah.repository.ReactiveKalahRepository;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Plays games without blocking a thread on the database. Games are not cached or routed to stripes here,
+ * every change is a fresh load followed by a conditional replace, retried on conflicts like in {@link GameServiceImpl}.
+ * Moves are validated, answered by the computer player and mapped to DTOs the same way as there.
+ */
+@Service
+@Profile("reactive")
+class ReactiveGameServiceImpl implements ReactiveGameService {
+
+    private final ReactiveKalahRepository kalahRepository;
+    private final KalahAi kalahAi;
+    private final GameMetrics gameMetrics;
+    private final int maxMoveRetries;
+    private final int maxBatchCount;
+
+    @Autowired
+    public ReactiveGameServiceImpl(ReactiveKalahRepository kalahRepository, KalahAi kalahAi, GameMetrics gameMetrics,
+                                   @Value("${kalah.persistence.max-retries}") int maxMoveRetries,
+                                   @Value("${kalah.games.batch.max-count}") int maxBatchCount) {
+        this.kalahRepository = kalahRepository;
+        this.kalahAi = kalahAi;
+        this.gameMetrics = gameMetrics;
+        this.maxMoveRetries = maxMoveRetries;
+        this.maxBatchCount = maxBatchCount;
+    }
+
+    /**
+     * @see GameServiceImpl#createGame(Player, int, int)
+     */
+    @Override
+    public Mono<GameCreatedDTO> createGame(Player bot, int pits, int seeds) {
+        if (!KalahEngine.isSupported(pits, seeds)) {
+            return Mono.error(new InvalidVariantException());
+        }
+        KalahEngine variant = KalahEngine.of(pits, seeds);
+        if (bot != null && variant != KalahEngine.STANDARD) {
+            return Mono.error(new VariantNotSupportedException());
+        }
+        Kalah kalah = new Kalah(new ObjectId().toHexString(), variant);
+        kalah.setBot(bot);
+        return kalahRepository.insert(kalah)
+                .flatMap(game -> replyAsBot(GameServiceImpl.toGameStateDto(new GameStateDto(), game)))
+                .map(state -> toGameCreatedDto(state.getId()));
+    }
+
+    @Override
+    public Flux<GameCreatedDTO> createGames(int count) {
+        if (count < 1 || count > maxBatchCount) {
+            return Flux.error(new InvalidGameCountException());
+        }
+        List<Kalah> games = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            games.add(new Kalah(new ObjectId().toHexString()));
+        }
+        return kalahRepository.insert(games).map(game -> toGameCreatedDto(game.getId()));
+    }
+
+    @Override
+    public Mono<GameStateDto> getGame(String gameId) {
+        return findGame(gameId).map(game -> GameServiceImpl.toGameStateDto(new GameStateDto(), game));
+    }
+
+    @Override
+    public Mono<Long> getMoveCount(String gameId) {
+        return kalahRepository.findMoveCount(gameId).switchIfEmpty(Mono.error(GameNotFoundException::new));
+    }
+
+    /**
+     * @see GameServiceImpl#getHint(String, Integer)
+     */
+    @Override
+    public Mono<HintDto> getHint(String gameId, Integer depth) {
+        if (depth != null && depth < 1) {
+            return Mono.error(new InvalidHintDepthException());
+        }
+        int depthLimit = depth == null ? kalahAi.getMaxDepth() : depth;
+        return findGame(gameId).flatMap(game -> {
+            if (game.isGameFinished()) {
+                return Mono.error(new GameFinishedException());
+            }
+            if (!game.isStandard()) {
+                return Mono.error(new VariantNotSupportedException());
+            }
+            return Mono.fromFuture(kalahAi.bestMove(game.packLow(), game.packHigh(), depthLimit));
+        }).map(GameServiceImpl::toHintDto);
+    }
+
+    /**
+     * @see GameServiceImpl#makeAMove(String, Integer)
+     */
+    @Override
+    public Mono<GameStateDto> makeAMove(String gameId, Integer pitId) {
+        return updateGame(gameId, game -> {
+            MoveResult result = GameServiceImpl.isBotsTurn(game) ? MoveResult.NOT_YOUR_PIT : game.tryMove(pitId);
+            if (!result.isValid()) {
+                gameMetrics.invalidMove(result);
+                throw result.toException();
+            }
+            return GameServiceImpl.toGameStateDto(new GameStateDto(), game);
+        }).flatMap(this::replyAsBot);
+    }
+
+    /**
+     * @see GameServiceImpl#makeMoves(String, int[])
+     */
+    @Override
+    public Mono<MovesResultDto> makeMoves(String gameId, int[] pitIds) {
+        return updateGame(gameId, game -> {
+            MovesResultDto dto = new MovesResultDto();
+            for (int i = 0; i < pitIds.length; i++) {
+                MoveResult result = GameServiceImpl.isBotsTurn(game) ? MoveResult.NOT_YOUR_PIT : game.tryMove(pitIds[i]);
+                if (!result.isValid()) {
+                    gameMetrics.invalidMove(result);
+                    if (i == 0) {
+                        throw result.toException();
+                    }
+                    dto.setFirstInvalidMove(i);
+                    break;
+                }
+            }
+            return GameServiceImpl.toGameStateDto(dto, game);
+        }).flatMap(this::replyAsBot);
+    }
+
+    /**
+     * Makes the computer's moves while it is its turn, its move is only made if nobody moved meanwhile.
+     */
+    private <T extends GameStateDto> Mono<T> replyAsBot(T state) {
+        if (state.isGameFinished() || state.getBot() == null || state.getBot() != state.getWhoseTurn()) {
+            return Mono.just(state);
+        }
+        Kalah position = new Kalah(state.getId(), state.getStatus(), state.getWhoseTurn(), false, null);
+        return Mono.fromFuture(kalahAi.bestMove(position.packLow(), position.packHigh(), kalahAi.getMaxDepth()))
+                .flatMap(best -> updateGame(state.getId(), game -> {
+                    if (game.getMoveCount() == state.getMoveCount()) {
+                        MoveResult result = game.tryMove(best.getMove() + Kalah.FIRST_PIT_IDX);
+                        if (!result.isValid()) {
+                            throw result.toException();
+                        }
+                    }
+                    return GameServiceImpl.toGameStateDto(state, game);
+                }))
+                .flatMap(this::replyAsBot);
+    }
+
+    /**
+     * Loads the game, applies the change and replaces the stored game if nobody changed it in the meantime,
+     * on a conflict the whole sequence is repeated up to {@code kalah.persistence.max-retries} times.
+     */
+    private <T> Mono<T> updateGame(String gameId, Function<Kalah, T> change) {
+        return findGame(gameId)
+                .flatMap(game -> {
+                    T result = change.apply(game);
+                    return kalahRepository.replaceIfVersionMatches(game)
+                            .flatMap(replaced -> replaced ? Mono.just(result) : Mono.error(new GameConflictException()));
+                })
+                .retryWhen(Retry.max(maxMoveRetries)
+                        .filter(GameConflictException.class::isInstance)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    private Mono<Kalah> findGame(String gameId) {
+        return kalahRepository.findById(gameId).switchIfEmpty(Mono.error(GameNotFoundException::new));
+    }
+
+    private static GameCreatedDTO toGameCreatedDto(String gameId) {
+        GameCreatedDTO dto = new GameCreatedDTO();
+        dto.setId(gameId);
+        return dto;
+    }
+}
@@ -0,0 +1,38 @@
+package com.nikowis.kalah.simulation;
+
+import com.nikowis.kalah.engine.KalahEngine;
+import com.nikowis.kalah.engine.Strategy;
+
+/**
+ * Takes an extra turn whenever it can, otherwise the move putting the most stones into the own house, ties go to
+ * the pit closest to the house.
+ */
+public class GreedyStrategy implements Strategy {
+
+    private static final KalahEngine ENGINE = KalahEngine.STANDARD;
+
+    private final int[] scratch = new int[ENGINE.boardSize()];
+
+    @Override
+    public int choosePit(int[] board, int player) {
+        int house = ENGINE.house(player);
+        int best = -1;
+        int bestGain = Integer.MIN_VALUE;
+        for (int pit = house - 1; pit >= ENGINE.firstPit(player); pit--) {
+            if (board[pit] == 0) {
+                continue;
+            }
+            System.arraycopy(board, 0, scratch, 0, scratch.length);
+            int flags = ENGINE.move(scratch, player, pit);
+            int gain = scratch[house] - board[house];
+            if ((flags & KalahEngine.EXTRA_TURN) != 0 && (flags & KalahEngine.GAME_OVER) == 0) {
+                gain += ENGINE.totalStones();
+            }
+            if (gain > bestGain) {
+                bestGain = gain;
+                best = pit;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,32 @@
+package com.nikowis.kalah.simulation;
+
+import com.nikowis.kalah.engine.KalahEngine;
+import com.nikowis.kalah.engine.Strategy;
+
+import java.util.SplittableRandom;
+
+/**
+ * Moves a uniformly random non empty pit.
+ */
+public class RandomStrategy implements Strategy {
+
+    private static final KalahEngine ENGINE = KalahEngine.STANDARD;
+
+    private final SplittableRandom random;
+    private final int[] legal = new int[ENGINE.playerPits()];
+
+    public RandomStrategy(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public int choosePit(int[] board, int player) {
+        int count = 0;
+        for (int pit = ENGINE.firstPit(player); pit < ENGINE.house(player); pit++) {
+            if (board[pit] != 0) {
+                legal[count++] = pit;
+            }
+        }
+        return legal[random.nextInt(count)];
+    }
+}
@@ -0,0 +1,121 @@
+package com.nikowis.kalah.simulation;
+
+import com.nikowis.kalah.engine.KalahEngine;
+import com.nikowis.kalah.engine.Strategy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+
+/**
+ * Plays complete games between two strategies in memory on all cores, with the rules of {@link KalahEngine} that
+ * back {@link com.nikowis.kalah.model.Kalah}.
+ * <p>
+ * Games are split evenly between the workers up front. Every worker has its own strategies, board and statistics,
+ * so workers share nothing until their statistics are merged at the end.
+ * <pre>
+ * mvn compile exec:java -Dexec.mainClass=com.nikowis.kalah.simulation.SelfPlaySimulator \
+ *     -Dexec.args="--games=1000000 --p1=greedy --p2=random"
+ * </pre>
+ * Options: {@code --games} (100000), {@code --threads} (0 for one per core), {@code --p1} and {@code --p2} as
+ * accepted by {@link Strategies#factory(String)} (random), {@code --seed} (1).
+ */
+public class SelfPlaySimulator {
+
+    private static final KalahEngine ENGINE = KalahEngine.STANDARD;
+
+    private final LongFunction<Strategy> firstPlayer;
+    private final LongFunction<Strategy> secondPlayer;
+    private final int threads;
+    private final long seed;
+
+    /**
+     * @param firstPlayer  creates the strategy of {@link KalahEngine#P1} of a worker from a seed
+     * @param secondPlayer creates the strategy of {@link KalahEngine#P2} of a worker from a seed
+     * @param threads      workers, {@code 0} for one per core
+     */
+    public SelfPlaySimulator(LongFunction<Strategy> firstPlayer, LongFunction<Strategy> secondPlayer, int threads, long seed) {
+        this.firstPlayer = firstPlayer;
+        this.secondPlayer = secondPlayer;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "");
+        }
+        SelfPlaySimulator simulator = new SelfPlaySimulator(
+                Strategies.factory(options.getOrDefault("p1", "random")),
+                Strategies.factory(options.getOrDefault("p2", "random")),
+                Integer.parseInt(options.getOrDefault("threads", "0")),
+                Long.parseLong(options.getOrDefault("seed", "1")));
+        System.out.println(simulator.run(Long.parseLong(options.getOrDefault("games", "100000"))));
+    }
+
+    /**
+     * Plays the games and waits for all of them.
+     */
+    public SimulationStatistics run(long games) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        SplittableRandom seeds = new SplittableRandom(seed);
+        long start = System.nanoTime();
+        try {
+            List<Future<SimulationStatistics>> workers = new ArrayList<>(threads);
+            for (int worker = 0; worker < threads; worker++) {
+                long workerGames = games / threads + (worker < games % threads ? 1 : 0);
+                Strategy first = firstPlayer.apply(seeds.nextLong());
+                Strategy second = secondPlayer.apply(seeds.nextLong());
+                workers.add(executor.submit(() -> play(first, second, workerGames)));
+            }
+            SimulationStatistics statistics = new SimulationStatistics();
+            for (Future<SimulationStatistics> worker : workers) {
+                statistics.add(worker.get());
+            }
+            statistics.setElapsedNanos(System.nanoTime() - start);
+            return statistics;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static SimulationStatistics play(Strategy first, Strategy second, long games) {
+        SimulationStatistics statistics = new SimulationStatistics();
+        int[] start = ENGINE.newBoard();
+        int[] board = new int[start.length];
+        // strategies only ever see a copy, so one that writes to the board cannot corrupt the game
+        int[] view = new int[start.length];
+        for (long game = 0; game < games; game++) {
+            System.arraycopy(start, 0, board, 0, start.length);
+            int player = KalahEngine.P1;
+            int moves = 0;
+            int flags;
+            do {
+                System.arraycopy(board, 0, view, 0, board.length);
+                int pit = (player == KalahEngine.P1 ? first : second).choosePit(view, player);
+                if (!ENGINE.isLegalMove(board, player, pit)) {
+                    throw new IllegalStateException("Strategy chose the illegal pit " + pit);
+                }
+                flags = ENGINE.move(board, player, pit);
+                statistics.moveMade(flags);
+                moves++;
+                if ((flags & KalahEngine.EXTRA_TURN) == 0) {
+                    player = KalahEngine.opponent(player);
+                }
+            } while ((flags & KalahEngine.GAME_OVER) == 0);
+            statistics.gamePlayed(ENGINE.winner(board), moves);
+        }
+        return statistics;
+    }
+}
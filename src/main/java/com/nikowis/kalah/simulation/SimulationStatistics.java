@@ -0,0 +1,103 @@
+package com.nikowis.kalah.simulation;
+
+import com.nikowis.kalah.engine.KalahEngine;
+
+/**
+ * Totals of simulated games. Every worker counts into its own instance, they are merged once all games are played.
+ */
+public class SimulationStatistics {
+
+    private long games;
+    private long firstPlayerWins;
+    private long secondPlayerWins;
+    private long moves;
+    private long extraTurns;
+    private long captures;
+    private long elapsedNanos;
+
+    void gamePlayed(int winner, int gameMoves) {
+        games++;
+        moves += gameMoves;
+        if (winner == KalahEngine.P1) {
+            firstPlayerWins++;
+        } else if (winner == KalahEngine.P2) {
+            secondPlayerWins++;
+        }
+    }
+
+    void moveMade(int flags) {
+        if ((flags & KalahEngine.EXTRA_TURN) != 0) {
+            extraTurns++;
+        }
+        if ((flags & KalahEngine.CAPTURE) != 0) {
+            captures++;
+        }
+    }
+
+    void add(SimulationStatistics other) {
+        games += other.games;
+        firstPlayerWins += other.firstPlayerWins;
+        secondPlayerWins += other.secondPlayerWins;
+        moves += other.moves;
+        extraTurns += other.extraTurns;
+        captures += other.captures;
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getFirstPlayerWins() {
+        return firstPlayerWins;
+    }
+
+    public long getSecondPlayerWins() {
+        return secondPlayerWins;
+    }
+
+    public long getDraws() {
+        return games - firstPlayerWins - secondPlayerWins;
+    }
+
+    public long getMoves() {
+        return moves;
+    }
+
+    public double getAverageGameLength() {
+        return games == 0 ? 0 : (double) moves / games;
+    }
+
+    /**
+     * @return share of moves that ended in the own house
+     */
+    public double getExtraTurnRate() {
+        return moves == 0 ? 0 : (double) extraTurns / moves;
+    }
+
+    /**
+     * @return share of moves that captured
+     */
+    public double getCaptureRate() {
+        return moves == 0 ? 0 : (double) captures / moves;
+    }
+
+    public double getGamesPerSecond() {
+        return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("games %d, P1 wins %.2f%%, P2 wins %.2f%%, draws %.2f%%, average length %.1f moves, "
+                        + "extra turns %.2f%% and captures %.2f%% of moves, %.0f games/s",
+                games, percent(firstPlayerWins), percent(secondPlayerWins), percent(getDraws()), getAverageGameLength(),
+                100 * getExtraTurnRate(), 100 * getCaptureRate(), getGamesPerSecond());
+    }
+
+    private double percent(long count) {
+        return games == 0 ? 0 : 100.0 * count / games;
+    }
+}
@@ -0,0 +1,47 @@
+package com.nikowis.kalah.simulation;
+
+import com.nikowis.kalah.ai.AlphaBetaStrategy;
+import com.nikowis.kalah.ai.MonteCarloStrategy;
+import com.nikowis.kalah.engine.Strategy;
+
+import java.util.function.LongFunction;
+
+/**
+ * Strategies by name, as given on the command line.
+ */
+public final class Strategies {
+
+    private Strategies() {
+    }
+
+    /**
+     * @param spec {@code random}, {@code greedy}, {@code alpha-beta:<depth>} or {@code mcts:<playouts>}
+     * @return factory creating a new strategy from a random seed, called once per thread
+     */
+    public static LongFunction<Strategy> factory(String spec) {
+        String[] parts = spec.split(":", 2);
+        switch (parts[0]) {
+            case "random":
+                return RandomStrategy::new;
+            case "greedy":
+                return seed -> new GreedyStrategy();
+            case "alpha-beta": {
+                int depth = Integer.parseInt(parameter(parts, spec));
+                return seed -> new AlphaBetaStrategy(depth);
+            }
+            case "mcts": {
+                long playouts = Long.parseLong(parameter(parts, spec));
+                return seed -> new MonteCarloStrategy(playouts, seed);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown strategy " + spec);
+        }
+    }
+
+    private static String parameter(String[] parts, String spec) {
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("Strategy " + spec + " needs a parameter after ':'");
+        }
+        return parts[1];
+    }
+}
@@ -0,0 +1,31 @@
+package com.nikowis.kalah.tournament;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Elo ratings from game results, updated game by game in schedule order.
+ */
+final class EloRatings {
+
+    static final double INITIAL_RATING = 1500;
+    private static final double K_FACTOR = 16;
+
+    private EloRatings() {
+    }
+
+    static double[] of(List<GameResult> results, int entrants) {
+        double[] ratings = new double[entrants];
+        Arrays.fill(ratings, INITIAL_RATING);
+        for (GameResult result : results) {
+            int first = result.getFirstPlayer();
+            int second = result.getSecondPlayer();
+            double expected = 1 / (1 + Math.pow(10, (ratings[second] - ratings[first]) / 400));
+            double actual = result.getWinner() == first ? 1 : result.getWinner() == second ? 0 : 0.5;
+            double change = K_FACTOR * (actual - expected);
+            ratings[first] += change;
+            ratings[second] -= change;
+        }
+        return ratings;
+    }
+}
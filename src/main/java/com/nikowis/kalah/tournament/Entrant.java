@@ -0,0 +1,18 @@
+package com.nikowis.kalah.tournament;
+
+import com.nikowis.kalah.engine.Strategy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.function.LongFunction;
+
+@Getter
+@AllArgsConstructor
+public class Entrant {
+
+    private final String name;
+    /**
+     * Creates the strategy of the entrant from a random seed, once per worker thread.
+     */
+    private final LongFunction<Strategy> strategy;
+}
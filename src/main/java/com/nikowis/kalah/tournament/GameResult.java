@@ -0,0 +1,28 @@
+package com.nikowis.kalah.tournament;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of one tournament game, entrants are identified by their index in the tournament.
+ */
+@Getter
+@AllArgsConstructor
+public class GameResult {
+
+    /**
+     * Position of the game in the schedule.
+     */
+    private final int index;
+    private final int firstPlayer;
+    private final int secondPlayer;
+    /**
+     * Index of the winning entrant, {@code -1} for a draw.
+     */
+    private final int winner;
+    /**
+     * Index of the entrant that exceeded the move time budget or chose an illegal pit, {@code -1} if none did.
+     */
+    private final int forfeitedBy;
+    private final int moves;
+}
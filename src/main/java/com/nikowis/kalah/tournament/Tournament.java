@@ -0,0 +1,268 @@
+package com.nikowis.kalah.tournament;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.nikowis.kalah.engine.KalahEngine;
+import com.nikowis.kalah.engine.Strategy;
+import com.nikowis.kalah.model.TournamentResult;
+import com.nikowis.kalah.repository.TournamentResultRepository;
+import com.nikowis.kalah.simulation.Strategies;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Round robin tournament between strategies, played in memory on a fixed pool of workers.
+ * <p>
+ * Every entrant plays {@code gamesPerPairing} games against every other entrant with each colour. The schedule is
+ * played round by round, so Elo ratings computed in schedule order see every pairing early on. A move that takes
+ * longer than the move time budget, or chooses an illegal pit, loses the game. Every worker creates its own
+ * strategy of every entrant and reuses it for all its games. Moves are chosen on a separate thread of the worker, so
+ * a move running over the budget is abandoned instead of holding up the worker.
+ * <pre>
+ * mvn compile exec:java -Dexec.mainClass=com.nikowis.kalah.tournament.Tournament \
+ *     -Dexec.args="--entrants=random,greedy,alpha-beta:6,mcts:2000 --games=20"
+ * </pre>
+ * Options: {@code --entrants} as accepted by {@link Strategies#factory(String)}, {@code --games} per pairing and
+ * colour (10), {@code --threads} (0 for one per core), {@code --move-time} in milliseconds (1000), {@code --seed} (1)
+ * and {@code --mongo} connection string with the database to store the result in, e.g.
+ * {@code mongodb://127.0.0.1:27017/games}.
+ */
+public class Tournament {
+
+    private static final KalahEngine ENGINE = KalahEngine.STANDARD;
+    private static final int TIMED_OUT = -1;
+
+    private final List<Entrant> entrants;
+    private final int gamesPerPairing;
+    private final int threads;
+    private final Duration moveTimeBudget;
+    private final long seed;
+
+    /**
+     * @param threads workers, {@code 0} for one per core
+     */
+    public Tournament(List<Entrant> entrants, int gamesPerPairing, int threads, Duration moveTimeBudget, long seed) {
+        if (entrants.size() < 2) {
+            throw new IllegalArgumentException("A tournament needs at least two entrants");
+        }
+        this.entrants = List.copyOf(entrants);
+        this.gamesPerPairing = gamesPerPairing;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.moveTimeBudget = moveTimeBudget;
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "");
+        }
+        List<Entrant> entrants = new ArrayList<>();
+        for (String spec : options.getOrDefault("entrants", "random,greedy").split(",")) {
+            entrants.add(new Entrant(spec, Strategies.factory(spec)));
+        }
+        Tournament tournament = new Tournament(entrants,
+                Integer.parseInt(options.getOrDefault("games", "10")),
+                Integer.parseInt(options.getOrDefault("threads", "0")),
+                Duration.ofMillis(Long.parseLong(options.getOrDefault("move-time", "1000"))),
+                Long.parseLong(options.getOrDefault("seed", "1")));
+
+        TournamentResult result = tournament.run((game, finished, total) -> {
+            if (10 * finished / total > 10 * (finished - 1) / total) {
+                System.out.printf("%d of %d games played%n", finished, total);
+            }
+        });
+
+        System.out.printf("%-20s %8s %6s %6s %6s %8s%n", "entrant", "rating", "wins", "draws", "losses", "forfeits");
+        for (TournamentResult.Standing standing : result.getStandings()) {
+            System.out.printf("%-20s %8.0f %6d %6d %6d %8d%n", standing.getName(), standing.getRating(),
+                    standing.getWins(), standing.getDraws(), standing.getLosses(), standing.getForfeits());
+        }
+        if (options.containsKey("mongo")) {
+            ConnectionString connection = new ConnectionString(options.get("mongo"));
+            try (MongoClient client = MongoClients.create(connection)) {
+                TournamentResultRepository repository = new MongoRepositoryFactory(new MongoTemplate(client, connection.getDatabase()))
+                        .getRepository(TournamentResultRepository.class);
+                System.out.println("Stored as " + repository.save(result).getId());
+            }
+        }
+    }
+
+    /**
+     * Plays all games and waits for them.
+     *
+     * @param listener told about every finished game
+     */
+    public TournamentResult run(TournamentListener listener) throws InterruptedException {
+        List<int[]> schedule = new ArrayList<>();
+        for (int round = 0; round < gamesPerPairing; round++) {
+            for (int first = 0; first < entrants.size(); first++) {
+                for (int second = 0; second < entrants.size(); second++) {
+                    if (first != second) {
+                        schedule.add(new int[]{first, second});
+                    }
+                }
+            }
+        }
+
+        SplittableRandom seeds = new SplittableRandom(seed);
+        List<ExecutorService> movers = Collections.synchronizedList(new ArrayList<>());
+        ThreadLocal<Worker> workers = ThreadLocal.withInitial(() -> new Worker(seeds, movers));
+        List<GameResult> results = new ArrayList<>(schedule.size());
+        AtomicInteger finished = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<GameResult>> games = new ArrayList<>(schedule.size());
+            for (int i = 0; i < schedule.size(); i++) {
+                int index = i;
+                int[] pairing = schedule.get(i);
+                games.add(executor.submit(() -> {
+                    GameResult result = play(index, pairing[0], pairing[1], workers.get());
+                    listener.gameFinished(result, finished.incrementAndGet(), schedule.size());
+                    return result;
+                }));
+            }
+            for (Future<GameResult> game : games) {
+                results.add(game.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tournament game failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            synchronized (movers) {
+                movers.forEach(ExecutorService::shutdownNow);
+            }
+        }
+        return toResult(results);
+    }
+
+    private GameResult play(int index, int firstPlayer, int secondPlayer, Worker worker) throws InterruptedException {
+        long budgetNanos = moveTimeBudget.toNanos();
+        int[] board = ENGINE.newBoard();
+        // entrants only ever see a copy, so a strategy cannot change the game by writing to the board
+        int[] view = new int[board.length];
+        int player = KalahEngine.P1;
+        int moves = 0;
+        int flags;
+        do {
+            int entrant = player == KalahEngine.P1 ? firstPlayer : secondPlayer;
+            System.arraycopy(board, 0, view, 0, board.length);
+            int pit = worker.choosePit(entrant, view, player, budgetNanos);
+            if (pit == TIMED_OUT || !ENGINE.isLegalMove(board, player, pit)) {
+                int opponent = entrant == firstPlayer ? secondPlayer : firstPlayer;
+                return new GameResult(index, firstPlayer, secondPlayer, opponent, entrant, moves);
+            }
+            flags = ENGINE.move(board, player, pit);
+            moves++;
+            if ((flags & KalahEngine.EXTRA_TURN) == 0) {
+                player = KalahEngine.opponent(player);
+            }
+        } while ((flags & KalahEngine.GAME_OVER) == 0);
+
+        int winner = ENGINE.winner(board);
+        int winningEntrant = winner == KalahEngine.NO_WINNER ? -1 : winner == KalahEngine.P1 ? firstPlayer : secondPlayer;
+        return new GameResult(index, firstPlayer, secondPlayer, winningEntrant, -1, moves);
+    }
+
+    /**
+     * Strategies of one worker and the thread their moves are chosen on. A move over the budget may still be running
+     * after it was abandoned, so its strategy is replaced and later moves are chosen on a new thread.
+     */
+    private final class Worker {
+
+        private final SplittableRandom seeds;
+        private final List<ExecutorService> movers;
+        private final Strategy[] strategies = new Strategy[entrants.size()];
+        private ExecutorService mover;
+
+        Worker(SplittableRandom seeds, List<ExecutorService> movers) {
+            this.seeds = seeds;
+            this.movers = movers;
+            for (int i = 0; i < strategies.length; i++) {
+                strategies[i] = newStrategy(i);
+            }
+            mover = newMover();
+        }
+
+        /**
+         * @return pit chosen by the entrant's strategy, {@link #TIMED_OUT} if it took longer than the budget
+         */
+        int choosePit(int entrant, int[] board, int player, long budgetNanos) throws InterruptedException {
+            Strategy strategy = strategies[entrant];
+            Future<Integer> pit = mover.submit(() -> strategy.choosePit(board, player));
+            try {
+                return pit.get(budgetNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                pit.cancel(true);
+                mover.shutdownNow();
+                strategies[entrant] = newStrategy(entrant);
+                mover = newMover();
+                return TIMED_OUT;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Strategy of " + entrants.get(entrant).getName() + " failed", e.getCause());
+            }
+        }
+
+        private Strategy newStrategy(int entrant) {
+            synchronized (seeds) {
+                return entrants.get(entrant).getStrategy().apply(seeds.nextLong());
+            }
+        }
+
+        private ExecutorService newMover() {
+            // daemon, so a strategy that ignores the interrupt cannot keep the JVM alive
+            ExecutorService created = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "tournament-mover");
+                thread.setDaemon(true);
+                return thread;
+            });
+            movers.add(created);
+            return created;
+        }
+    }
+
+    private TournamentResult toResult(List<GameResult> results) {
+        double[] ratings = EloRatings.of(results, entrants.size());
+        int[] wins = new int[entrants.size()];
+        int[] draws = new int[entrants.size()];
+        int[] losses = new int[entrants.size()];
+        int[] forfeits = new int[entrants.size()];
+        for (GameResult result : results) {
+            if (result.getWinner() < 0) {
+                draws[result.getFirstPlayer()]++;
+                draws[result.getSecondPlayer()]++;
+            } else {
+                wins[result.getWinner()]++;
+                losses[result.getWinner() == result.getFirstPlayer() ? result.getSecondPlayer() : result.getFirstPlayer()]++;
+            }
+            if (result.getForfeitedBy() >= 0) {
+                forfeits[result.getForfeitedBy()]++;
+            }
+        }
+        List<TournamentResult.Standing> standings = new ArrayList<>(entrants.size());
+        for (int i = 0; i < entrants.size(); i++) {
+            standings.add(new TournamentResult.Standing(entrants.get(i).getName(), wins[i], draws[i], losses[i], forfeits[i], ratings[i]));
+        }
+        standings.sort(Comparator.comparingDouble(TournamentResult.Standing::getRating).reversed());
+        return new TournamentResult(Instant.now(), gamesPerPairing, moveTimeBudget.toMillis(), standings);
+    }
+}
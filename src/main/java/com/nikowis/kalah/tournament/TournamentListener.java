@@ -0,0 +1,14 @@
+package com.nikowis.kalah.tournament;
+
+/**
+ * Receives the games of a running tournament as they finish, called from the worker threads.
+ */
+@FunctionalInterface
+public interface TournamentListener {
+
+    /**
+     * @param finished games finished so far, including this one
+     * @param total    games scheduled
+     */
+    void gameFinished(GameResult result, int finished, int total);
+}
@@ -0,0 +1,118 @@
+package com.nikowis.kalah.ai;
+
+import com.nikowis.kalah.engine.KalahEngine;
+import com.nikowis.kalah.engine.PackedPosition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static com.nikowis.kalah.engine.KalahEngine.*;
+
+class AlphaBetaSearchTest {
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE / 2;
+
+    private final KalahEngine engine = KalahEngine.STANDARD;
+    private final AlphaBetaSearch search = new AlphaBetaSearch(new TranspositionTable(12));
+
+    /**
+     * Plain negamax over engine boards, without pruning, table or move ordering.
+     */
+    private int negamax(int[] board, int player, int depth) {
+        if (depth == 0) {
+            return board[engine.house(player)] - board[engine.house(opponent(player))];
+        }
+        int best = Integer.MIN_VALUE;
+        for (int pit = engine.firstPit(player); pit < engine.house(player); pit++) {
+            if (board[pit] == 0) {
+                continue;
+            }
+            int[] child = board.clone();
+            int flags = engine.move(child, player, pit);
+            int score;
+            if ((flags & GAME_OVER) != 0) {
+                score = child[engine.house(player)] - child[engine.house(opponent(player))];
+            } else if ((flags & EXTRA_TURN) != 0) {
+                score = negamax(child, player, depth - 1);
+            } else {
+                score = -negamax(child, opponent(player), depth - 1);
+            }
+            best = Math.max(best, score);
+        }
+        return best;
+    }
+
+    @Test
+    public void testScoreMatchesPlainNegamax() {
+        Random random = new Random(42);
+        for (int game = 0; game < 20; game++) {
+            int[] board = engine.newBoard();
+            int player = P1;
+            for (int move = 0; move < 5 + random.nextInt(20); move++) {
+                int pit = engine.firstPit(player) + random.nextInt(engine.playerPits());
+                if (!engine.isLegalMove(board, player, pit)) {
+                    continue;
+                }
+                int flags = engine.move(board, player, pit);
+                if ((flags & GAME_OVER) != 0) {
+                    break;
+                }
+                if ((flags & EXTRA_TURN) == 0) {
+                    player = opponent(player);
+                }
+            }
+            if (engine.isGameOver(board)) {
+                continue;
+            }
+
+            SearchResult result = search.search(PackedPosition.low(board), PackedPosition.high(board, player, false), 5, NO_DEADLINE);
+
+            Assertions.assertEquals(negamax(board, player, 5), result.getScore());
+            Assertions.assertTrue(engine.isLegalMove(board, player, result.getMove()));
+        }
+    }
+
+    @Test
+    public void testPrefersTheCapture() {
+        int[] board = engine.newBoard(new int[]{0, 0, 0, 1, 0, 1, 20, 0, 30, 0, 0, 0, 1, 19});
+
+        SearchResult result = search.search(PackedPosition.low(board), PackedPosition.high(board, P1, false), 1, NO_DEADLINE);
+
+        Assertions.assertEquals(3, result.getMove(), "Capturing the 30 stones opposite pit 5 beats the extra turn");
+    }
+
+    @Test
+    public void testStopsDeepeningAtTheEndOfTheGame() {
+        int[] board = engine.newBoard(new int[]{0, 0, 0, 0, 0, 1, 30, 0, 0, 0, 0, 0, 1, 40});
+
+        SearchResult result = search.search(PackedPosition.low(board), PackedPosition.high(board, P1, false), 30, NO_DEADLINE);
+
+        Assertions.assertTrue(result.getDepth() < 30, "Search should stop once the whole game is searched");
+        Assertions.assertEquals(5, result.getMove());
+    }
+
+    @Test
+    public void testExpiredDeadlineStillCompletesTheFirstPly() {
+        int[] board = engine.newBoard();
+
+        SearchResult result = search.search(PackedPosition.low(board), PackedPosition.high(board, P1, false), 20, System.nanoTime());
+
+        Assertions.assertEquals(1, result.getDepth());
+        Assertions.assertTrue(engine.isLegalMove(board, P1, result.getMove()));
+    }
+
+    @Test
+    public void testTableEntryRoundTrip() {
+        TranspositionTable table = new TranspositionTable(4);
+
+        table.store(17, 12, TranspositionTable.LOWER_BOUND, -1, -35);
+        long entry = table.probe(17);
+
+        Assertions.assertEquals(-35, TranspositionTable.score(entry));
+        Assertions.assertEquals(12, TranspositionTable.depth(entry));
+        Assertions.assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.bound(entry));
+        Assertions.assertEquals(-1, TranspositionTable.move(entry));
+        Assertions.assertEquals(TranspositionTable.MISS, table.probe(1), "Same slot with a different hash should miss");
+    }
+}
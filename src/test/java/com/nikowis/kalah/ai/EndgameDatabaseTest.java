@@ -0,0 +1,106 @@
+package com.nikowis.kalah.ai;
+
+import com.nikowis.kalah.engine.KalahEngine;
+import com.nikowis.kalah.engine.PackedPosition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import static com.nikowis.kalah.engine.KalahEngine.*;
+
+class EndgameDatabaseTest {
+
+    private static final int MAX_STONES = 6;
+    private static final long NO_DEADLINE = Long.MAX_VALUE / 2;
+
+    private static EndgameDatabase database;
+
+    private final KalahEngine engine = KalahEngine.STANDARD;
+
+    @BeforeAll
+    static void generate(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("endgame.db");
+        EndgameDatabaseGenerator.generate(MAX_STONES, file);
+        database = EndgameDatabase.open(file);
+    }
+
+    @Test
+    public void testIndexNumbersEveryDistributionOnce() {
+        EndgameIndex index = new EndgameIndex(3);
+        BitSet seen = new BitSet();
+        int[] pits = new int[EndgameIndex.PITS];
+        int count = 0;
+        for (int code = 0; code < Math.pow(4, EndgameIndex.PITS); code++) {
+            int total = 0;
+            for (int pit = 0, rest = code; pit < pits.length; pit++, rest /= 4) {
+                pits[pit] = rest % 4;
+                total += pits[pit];
+            }
+            if (total > 3) {
+                continue;
+            }
+            int i = (int) index.index(pits);
+            Assertions.assertFalse(seen.get(i), "Index should be unique");
+            seen.set(i);
+            count++;
+        }
+        Assertions.assertEquals(index.size(), count);
+        Assertions.assertEquals(count, seen.nextClearBit(0), "Indices should be dense");
+    }
+
+    @Test
+    public void testScoresMatchFullSearch() {
+        Random random = new Random(7);
+        AlphaBetaSearch search = new AlphaBetaSearch(new TranspositionTable(16));
+        for (int i = 0; i < 200; i++) {
+            int[] pits = new int[engine.pitCount()];
+            int inPits = 1 + random.nextInt(MAX_STONES);
+            for (int stone = 0; stone < inPits; stone++) {
+                int pit = random.nextInt(2 * engine.playerPits());
+                pits[pit < engine.playerPits() ? pit : pit + 1]++;
+            }
+            pits[engine.house(P1)] = random.nextInt(engine.totalStones() - inPits + 1);
+            pits[engine.house(P2)] = engine.totalStones() - inPits - pits[engine.house(P1)];
+            int[] board = engine.newBoard(pits);
+            int player = random.nextBoolean() ? P1 : P2;
+            if (engine.sideStones(board, P1) == 0 || engine.sideStones(board, P2) == 0) {
+                continue;
+            }
+            long low = PackedPosition.low(board);
+            long high = PackedPosition.high(board, player, false);
+
+            SearchResult solved = search.search(low, high, AlphaBetaSearch.MAX_DEPTH, NO_DEADLINE);
+
+            Assertions.assertTrue(database.contains(low, high));
+            Assertions.assertEquals(solved.getScore(), database.score(low, high), "Position " + Arrays.toString(pits));
+        }
+    }
+
+    @Test
+    public void testSearchUsesTheDatabase() {
+        int[] board = engine.newBoard(new int[]{0, 0, 2, 0, 1, 0, 30, 0, 1, 0, 0, 3, 1, 34});
+        long low = PackedPosition.low(board);
+        long high = PackedPosition.high(board, P1, false);
+
+        SearchResult withDatabase = new AlphaBetaSearch(new TranspositionTable(10), database).search(low, high, 30, NO_DEADLINE);
+        SearchResult without = new AlphaBetaSearch(new TranspositionTable(10)).search(low, high, 30, NO_DEADLINE);
+
+        Assertions.assertEquals(without.getScore(), withDatabase.getScore());
+        Assertions.assertTrue(withDatabase.getNodes() < without.getNodes(), "Looked up positions should not be searched");
+    }
+
+    @Test
+    public void testRejectsOtherFiles(@TempDir Path directory) throws IOException {
+        Path file = Files.write(directory.resolve("other.db"), new byte[32]);
+
+        Assertions.assertThrows(IOException.class, () -> EndgameDatabase.open(file));
+    }
+}
@@ -0,0 +1,52 @@
+package com.nikowis.kalah.ai;
+
+import com.nikowis.kalah.engine.KalahEngine;
+import com.nikowis.kalah.engine.PackedPosition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+
+class KalahAiTest {
+
+    private final KalahEngine engine = KalahEngine.STANDARD;
+    private KalahAi kalahAi;
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        kalahAi.shutdown();
+    }
+
+    @Test
+    public void testParallelSearchReachesTheDepth() throws IOException {
+        kalahAi = new KalahAi(4, Duration.ofMinutes(1), 8, 16, 4, "", "", SearchAlgorithm.ALPHA_BETA, 0);
+        int[] board = engine.newBoard();
+
+        SearchResult result = kalahAi.bestMove(PackedPosition.low(board), PackedPosition.high(board, KalahEngine.P1, false), 8).join();
+
+        Assertions.assertEquals(8, result.getDepth());
+        Assertions.assertTrue(engine.isLegalMove(board, KalahEngine.P1, result.getMove()));
+    }
+
+    @Test
+    public void testParallelSearchScoresLikeSingleThreadedSearch() throws IOException {
+        kalahAi = new KalahAi(4, Duration.ofMinutes(1), 30, 16, 4, "", "", SearchAlgorithm.ALPHA_BETA, 0);
+        int[] board = engine.newBoard(new int[]{0, 2, 0, 1, 0, 3, 30, 1, 0, 2, 0, 1, 0, 32});
+        long low = PackedPosition.low(board);
+        long high = PackedPosition.high(board, KalahEngine.P1, false);
+
+        SearchResult parallel = kalahAi.bestMove(low, high, 30).join();
+        SearchResult single = new AlphaBetaSearch(new TranspositionTable(16)).search(low, high, 30, Long.MAX_VALUE / 2);
+
+        Assertions.assertEquals(single.getScore(), parallel.getScore(), "Solved endgame should have the same score");
+    }
+
+    @Test
+    public void testParallelismIsCappedByThePool() throws IOException {
+        kalahAi = new KalahAi(2, Duration.ofMillis(10), 8, 10, 8, "", "", SearchAlgorithm.ALPHA_BETA, 0);
+
+        Assertions.assertEquals(2, kalahAi.getParallelism());
+    }
+}
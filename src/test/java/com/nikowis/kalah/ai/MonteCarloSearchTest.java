@@ -0,0 +1,68 @@
+package com.nikowis.kalah.ai;
+
+import com.nikowis.kalah.engine.KalahEngine;
+import com.nikowis.kalah.engine.PackedPosition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.nikowis.kalah.engine.KalahEngine.P1;
+
+class MonteCarloSearchTest {
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE / 2;
+
+    private final KalahEngine engine = KalahEngine.STANDARD;
+    private final MonteCarloSearch search = new MonteCarloSearch(42);
+
+    @Test
+    public void testPlayoutEndsTheGame() {
+        int[] board = engine.newBoard();
+
+        int difference = search.playout(PackedPosition.low(board), PackedPosition.high(board, P1, false));
+
+        Assertions.assertEquals(0, (difference + engine.totalStones()) % 2, "Both houses should hold all stones");
+        Assertions.assertTrue(Math.abs(difference) <= engine.totalStones());
+    }
+
+    @Test
+    public void testFindsTheWinningCapture() {
+        int[] board = engine.newBoard(new int[]{0, 0, 0, 1, 0, 1, 20, 0, 30, 0, 0, 0, 1, 19});
+
+        SearchResult result = search.search(PackedPosition.low(board), PackedPosition.high(board, P1, false),
+                NO_DEADLINE, 2000, new AtomicBoolean(), true).toResult();
+
+        Assertions.assertEquals(3, result.getMove());
+        Assertions.assertEquals(2000, result.getNodes());
+        Assertions.assertTrue(result.getScore() > 0);
+    }
+
+    @Test
+    public void testExpiredDeadlineStillTriesEveryMove() {
+        int[] board = engine.newBoard();
+
+        MonteCarloSearch.RootStatistics statistics = search.search(PackedPosition.low(board), PackedPosition.high(board, P1, false),
+                System.nanoTime(), Long.MAX_VALUE, new AtomicBoolean(), true);
+
+        for (int pit = engine.firstPit(P1); pit < engine.house(P1); pit++) {
+            Assertions.assertTrue(statistics.visits[pit] > 0, "Every root move should be played out");
+        }
+    }
+
+    @Test
+    public void testRootParallelSearchMergesThreads() throws Exception {
+        KalahAi kalahAi = new KalahAi(2, Duration.ofMinutes(1), 8, 10, 2, "", "", SearchAlgorithm.MCTS, 4000);
+        try {
+            int[] board = engine.newBoard();
+
+            SearchResult result = kalahAi.bestMove(PackedPosition.low(board), PackedPosition.high(board, P1, false), 8).join();
+
+            Assertions.assertTrue(result.getNodes() >= 2000 && result.getNodes() <= 4000, "Main search should use its share of the playouts");
+            Assertions.assertTrue(engine.isLegalMove(board, P1, result.getMove()));
+        } finally {
+            kalahAi.shutdown();
+        }
+    }
+}
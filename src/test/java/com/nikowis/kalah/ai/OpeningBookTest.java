@@ -0,0 +1,97 @@
+package com.nikowis.kalah.ai;
+
+import com.nikowis.kalah.engine.KalahEngine;
+import com.nikowis.kalah.engine.PackedPosition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static com.nikowis.kalah.engine.KalahEngine.P1;
+
+class OpeningBookTest {
+
+    private static final int PLIES = 3;
+    private static final int DEPTH = 4;
+
+    private static Path file;
+    private static OpeningBook book;
+
+    private final KalahEngine engine = KalahEngine.STANDARD;
+
+    @BeforeAll
+    static void build(@TempDir Path directory) throws IOException {
+        file = directory.resolve("opening.book");
+        OpeningBookBuilder.build(PLIES, DEPTH, file);
+        book = OpeningBook.open(file);
+    }
+
+    @Test
+    public void testHoldsEveryPositionOfTheFirstPlies() {
+        long[] positions = new OpeningBookBuilder(PLIES).collect();
+
+        Assertions.assertEquals(positions.length / 2, book.size());
+        Assertions.assertEquals(PLIES, book.getPlies());
+        Assertions.assertEquals(DEPTH, book.getDepth());
+        for (int i = 0; i < book.size(); i++) {
+            long low = positions[2 * i];
+            long high = positions[2 * i + 1];
+            int entry = book.find(low, high);
+            Assertions.assertEquals(i, entry, "Positions should be sorted");
+            Assertions.assertTrue(PackedPosition.isLegalMove(low, high, book.move(entry)));
+        }
+    }
+
+    @Test
+    public void testStoresTheSearchedMove() {
+        int[] board = engine.newBoard();
+        long low = PackedPosition.low(board);
+        long high = PackedPosition.high(board, P1, false);
+
+        SearchResult searched = new AlphaBetaSearch(new TranspositionTable(16)).search(low, high, DEPTH, System.nanoTime() + Long.MAX_VALUE / 2);
+
+        int entry = book.find(low, high);
+        Assertions.assertEquals(searched.getMove(), book.move(entry));
+        Assertions.assertEquals(searched.getScore(), book.score(entry));
+    }
+
+    @Test
+    public void testMissesPositionsAfterTheBook() {
+        long[] position = new long[2];
+        int[] board = engine.newBoard();
+        position[0] = PackedPosition.low(board);
+        position[1] = PackedPosition.high(board, P1, false);
+        for (int pit : new int[]{0, 7, 1}) {
+            PackedPosition.move(position, 0, pit);
+        }
+
+        Assertions.assertEquals(-1, book.find(position[0], position[1]));
+        Assertions.assertEquals(-1, OpeningBook.NONE.find(position[0], position[1]));
+    }
+
+    @Test
+    public void testComputerPlayerAnswersFromTheBook() throws Exception {
+        KalahAi kalahAi = new KalahAi(1, Duration.ofMinutes(1), 8, 10, 1, "", file.toString(), SearchAlgorithm.ALPHA_BETA, 0);
+        try {
+            int[] board = engine.newBoard();
+            SearchResult result = kalahAi.bestMove(PackedPosition.low(board), PackedPosition.high(board, P1, false), 8).join();
+
+            Assertions.assertEquals(0, result.getNodes(), "Book positions should not be searched");
+            Assertions.assertEquals(DEPTH, result.getDepth());
+        } finally {
+            kalahAi.shutdown();
+        }
+    }
+
+    @Test
+    public void testRejectsOtherFiles(@TempDir Path directory) throws IOException {
+        Path other = Files.write(directory.resolve("other.book"), new byte[36]);
+
+        Assertions.assertThrows(IOException.class, () -> OpeningBook.open(other));
+    }
+}
@@ -0,0 +1,185 @@
+package com.nikowis.kalah.engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.nikowis.kalah.engine.KalahEngine.*;
+
+class KalahEngineTest {
+
+    private final KalahEngine engine = KalahEngine.STANDARD;
+
+    /**
+     * Pit by pit sowing as in the original map based implementation, used as a reference for the closed form engine.
+     *
+     * @return result flags the engine is expected to return
+     */
+    private int referenceMove(int[] pits, int player, int pit) {
+        int pitCount = pits.length;
+        int ownHouse = player == P1 ? pitCount / 2 - 1 : pitCount - 1;
+        int opponentsHouse = player == P1 ? pitCount - 1 : pitCount / 2 - 1;
+
+        int stones = pits[pit];
+        pits[pit] = 0;
+        int last = pit;
+        while (stones > 0) {
+            last = (last + 1) % pitCount;
+            if (last == opponentsHouse) {
+                continue;
+            }
+            pits[last]++;
+            stones--;
+        }
+
+        int result = 0;
+        boolean ownRegularPit = player == P1 ? last < ownHouse : last > pitCount / 2 - 1 && last < ownHouse;
+        if (ownRegularPit && pits[last] == 1) {
+            int opposite = pitCount - 2 - last;
+            pits[ownHouse] += pits[last] + pits[opposite];
+            pits[last] = 0;
+            pits[opposite] = 0;
+            result |= CAPTURE;
+        }
+        if (last == ownHouse) {
+            result |= EXTRA_TURN;
+        }
+
+        int p1Stones = 0, p2Stones = 0;
+        for (int i = 0; i < pitCount / 2 - 1; i++) {
+            p1Stones += pits[i];
+            p2Stones += pits[i + pitCount / 2];
+        }
+        if (p1Stones == 0 || p2Stones == 0) {
+            for (int i = 0; i < pitCount / 2 - 1; i++) {
+                pits[i] = 0;
+                pits[i + pitCount / 2] = 0;
+            }
+            pits[pitCount / 2 - 1] += p1Stones;
+            pits[pitCount - 1] += p2Stones;
+            result |= GAME_OVER;
+        }
+        return result;
+    }
+
+    @Test
+    public void testNewBoardKeepsSideTotals() {
+        int[] board = engine.newBoard();
+
+        Assertions.assertEquals(36, engine.sideStones(board, P1));
+        Assertions.assertEquals(36, engine.sideStones(board, P2));
+        Assertions.assertEquals(engine.pitCount() + 2, board.length);
+    }
+
+    @Test
+    public void testLongLapSkipsOpponentsHouse() {
+        int[] board = engine.newBoard(new int[]{0, 0, 0, 0, 0, 14, 0, 1, 1, 1, 1, 1, 1, 0});
+
+        int result = engine.move(board, P1, 5);
+
+        Assertions.assertArrayEquals(new int[]{1, 1, 1, 1, 1, 1, 2, 2, 2, 2, 2, 2, 2, 0, 6, 12}, board);
+        Assertions.assertEquals(EXTRA_TURN, result, "Last stone of the second lap lands in the own house");
+    }
+
+    @Test
+    public void testFullLapEndingInEmptiedPitCaptures() {
+        int[] board = engine.newBoard(new int[]{0, 0, 0, 0, 0, 13, 0, 1, 1, 1, 1, 1, 1, 0});
+
+        int result = engine.move(board, P1, 5);
+
+        Assertions.assertEquals(CAPTURE, result);
+        Assertions.assertArrayEquals(new int[]{1, 1, 1, 1, 1, 0, 4, 0, 2, 2, 2, 2, 2, 0, 5, 10}, board);
+    }
+
+    @Test
+    public void testGameOverMovesStonesToHouses() {
+        int[] board = engine.newBoard(new int[]{0, 0, 0, 0, 0, 1, 14, 1, 1, 1, 1, 1, 1, 5});
+
+        int result = engine.move(board, P1, 5);
+
+        Assertions.assertEquals(EXTRA_TURN | GAME_OVER, result);
+        Assertions.assertTrue(engine.isGameOver(board));
+        Assertions.assertEquals(P1, engine.winner(board));
+        Assertions.assertArrayEquals(new int[]{0, 0, 0, 0, 0, 0, 15, 0, 0, 0, 0, 0, 0, 11, 0, 0}, board);
+    }
+
+    @Test
+    public void testIsLegalMove() {
+        int[] board = engine.newBoard(new int[]{0, 1, 1, 1, 1, 1, 0, 1, 1, 1, 1, 1, 1, 0});
+
+        Assertions.assertFalse(engine.isLegalMove(board, P1, 0), "Empty pit");
+        Assertions.assertTrue(engine.isLegalMove(board, P1, 1));
+        Assertions.assertFalse(engine.isLegalMove(board, P1, 6), "Own house");
+        Assertions.assertFalse(engine.isLegalMove(board, P1, 7), "Opponents pit");
+        Assertions.assertTrue(engine.isLegalMove(board, P2, 7));
+        Assertions.assertFalse(engine.isLegalMove(board, P2, 13), "Own house");
+        Assertions.assertFalse(engine.isLegalMove(board, P2, 14), "Out of bounds");
+    }
+
+    @Test
+    public void testMatchesReferenceImplementationOnRandomGames() {
+        playRandomGames(engine, 2_000);
+    }
+
+    @Test
+    public void testVariantsMatchReferenceImplementation() {
+        for (int pits = MIN_PLAYER_PITS; pits <= MAX_PLAYER_PITS; pits++) {
+            for (int stones = MIN_INITIAL_STONES; stones <= MAX_INITIAL_STONES; stones++) {
+                KalahEngine variant = KalahEngine.of(pits, stones);
+
+                Assertions.assertEquals(2 * pits + 2, variant.pitCount());
+                Assertions.assertEquals(pits * stones, variant.sideStones(variant.newBoard(), P1));
+                playRandomGames(variant, 100);
+            }
+        }
+    }
+
+    @Test
+    public void testVariantsAreShared() {
+        Assertions.assertSame(STANDARD, KalahEngine.of(6, 6));
+        Assertions.assertSame(KalahEngine.of(4, 3), KalahEngine.of(4, 3));
+        Assertions.assertEquals(4, KalahEngine.of(4, 3).house(P1));
+        Assertions.assertEquals(9, KalahEngine.of(4, 3).house(P2));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> KalahEngine.of(3, 6));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> KalahEngine.of(9, 6));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> KalahEngine.of(6, 2));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> KalahEngine.of(6, 7));
+    }
+
+    private void playRandomGames(KalahEngine engine, int games) {
+        Random random = new Random(42);
+        int[] legal = new int[engine.playerPits()];
+
+        for (int game = 0; game < games; game++) {
+            int[] board = engine.newBoard();
+            int[] pits = Arrays.copyOf(board, engine.pitCount());
+            int player = P1;
+
+            while (!engine.isGameOver(board)) {
+                int legalCount = 0;
+                for (int pit = engine.firstPit(player); pit < engine.house(player); pit++) {
+                    if (engine.isLegalMove(board, player, pit)) {
+                        legal[legalCount++] = pit;
+                    }
+                }
+                int pit = legal[random.nextInt(legalCount)];
+
+                int expected = referenceMove(pits, player, pit);
+                int actual = engine.move(board, player, pit);
+
+                Assertions.assertEquals(expected, actual, "Result flags");
+                Assertions.assertArrayEquals(pits, Arrays.copyOf(board, engine.pitCount()), "Board after move");
+                int[] recomputed = board.clone();
+                engine.updateSideTotals(recomputed);
+                Assertions.assertArrayEquals(recomputed, board, "Running side totals");
+
+                if ((actual & EXTRA_TURN) == 0) {
+                    player = opponent(player);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.nikowis.kalah.engine;
+
+import com.nikowis.kalah.model.Kalah;
+import com.nikowis.kalah.model.Player;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.nikowis.kalah.engine.KalahEngine.*;
+
+class PackedPositionTest {
+
+    private final KalahEngine engine = KalahEngine.STANDARD;
+
+    @Test
+    public void testEncodeDecodeRoundTrip() {
+        int[] board = engine.newBoard(new int[]{72, 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+
+        long low = PackedPosition.low(board);
+        long high = PackedPosition.high(board, P2, true);
+        int[] decoded = new int[engine.boardSize()];
+        PackedPosition.decode(low, high, decoded);
+
+        Assertions.assertArrayEquals(board, decoded);
+        Assertions.assertEquals(P2, PackedPosition.sideToMove(high));
+        Assertions.assertTrue(PackedPosition.isFinished(high));
+        Assertions.assertEquals(72, PackedPosition.stones(low, high, 0));
+        Assertions.assertEquals(12, PackedPosition.stones(low, high, 13));
+    }
+
+    @Test
+    public void testKalahRoundTrip() {
+        Kalah kalah = new Kalah();
+        kalah.move(3);
+
+        Kalah restored = Kalah.fromPacked(kalah.getId(), kalah.packLow(), kalah.packHigh());
+
+        Assertions.assertArrayEquals(kalah.getPits(), restored.getPits());
+        Assertions.assertEquals(Player.P2, restored.getWhoseTurn());
+        Assertions.assertFalse(restored.isGameFinished());
+    }
+
+    @Test
+    public void testCompareOrdersByHighWordFirst() {
+        Assertions.assertTrue(PackedPosition.compare(-1L, 0L, 0L, 1L) < 0);
+        Assertions.assertTrue(PackedPosition.compare(-1L, 1L, 0L, 1L) > 0, "Words are compared unsigned");
+        Assertions.assertEquals(0, PackedPosition.compare(5L, 7L, 5L, 7L));
+    }
+
+    @Test
+    public void testMatchesEngineOnRandomGames() {
+        Random random = new Random(7);
+        long[] positions = new long[2];
+        int[] legal = new int[engine.playerPits()];
+
+        for (int game = 0; game < 2_000; game++) {
+            int[] board = engine.newBoard();
+            int player = P1;
+            positions[0] = PackedPosition.low(board);
+            positions[1] = PackedPosition.high(board, player, false);
+
+            while (!engine.isGameOver(board)) {
+                int legalCount = 0;
+                for (int pit = 0; pit < engine.pitCount(); pit++) {
+                    Assertions.assertEquals(engine.isLegalMove(board, player, pit), PackedPosition.isLegalMove(positions[0], positions[1], pit));
+                    if (engine.isLegalMove(board, player, pit)) {
+                        legal[legalCount++] = pit;
+                    }
+                }
+                int pit = legal[random.nextInt(legalCount)];
+
+                int expected = engine.move(board, player, pit);
+                int actual = PackedPosition.move(positions, 0, pit);
+                if ((expected & EXTRA_TURN) == 0) {
+                    player = opponent(player);
+                }
+
+                Assertions.assertEquals(expected, actual, "Result flags");
+                Assertions.assertEquals(PackedPosition.low(board), positions[0], () -> "Low word for " + Arrays.toString(board));
+                Assertions.assertEquals(PackedPosition.high(board, player, engine.isGameOver(board)), positions[1], () -> "High word for " + Arrays.toString(board));
+            }
+        }
+    }
+
+}
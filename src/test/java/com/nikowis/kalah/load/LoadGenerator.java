@@ -0,0 +1,260 @@
+package com.nikowis.kalah.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nikowis.kalah.KalahApplication;
+import com.nikowis.kalah.model.Kalah;
+import com.nikowis.kalah.rest.GameController;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+
+/**
+ * Closed loop load test of the HTTP API. Every simulated player creates a game, plays random legal moves for both
+ * sides until the game is finished and starts over, for the configured duration. Requests made during the warmup are
+ * not recorded. Throughput and latency percentiles of game creation and moves are printed at the end.
+ * <p>
+ * Unless {@code --target} points at a running server the app is started in-process with its embedded mongo:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.nikowis.kalah.load.LoadGenerator \
+ *     -Dexec.args="--players=32 --duration=60 --warmup=10"
+ * </pre>
+ * Options: {@code --players} (16), {@code --duration} and {@code --warmup} in seconds (30 and 5), {@code --target}
+ * base url. Other {@code --key=value} arguments are passed to the started app, e.g. {@code --kalah.persistence.mode=batched}.
+ */
+public class LoadGenerator {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final HttpRequest.BodyPublisher NO_BODY = HttpRequest.BodyPublishers.noBody();
+
+    private final HttpClient client;
+    private final String baseUrl;
+
+    LoadGenerator(String baseUrl, int players) {
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newFixedThreadPool(Math.max(2, players / 4)))
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        List<String> appArgs = new ArrayList<>();
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            switch (option[0]) {
+                case "players", "duration", "warmup", "target" -> options.put(option[0], option[1]);
+                default -> appArgs.add(arg);
+            }
+        }
+        int players = Integer.parseInt(options.getOrDefault("players", "16"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "5")));
+
+        ConfigurableApplicationContext app = null;
+        String target = options.get("target");
+        if (target == null) {
+            app = SpringApplication.run(KalahApplication.class, appArgs.toArray(String[]::new));
+            target = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+        }
+        try {
+            Report report = new LoadGenerator(target, players).run(players, warmup, duration);
+            report.print(System.out);
+        } finally {
+            if (app != null) {
+                app.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    Report run(int players, Duration warmup, Duration duration) throws InterruptedException, ExecutionException {
+        long start = System.nanoTime();
+        long recordFrom = start + warmup.toNanos();
+        long end = recordFrom + duration.toNanos();
+
+        ExecutorService pool = Executors.newFixedThreadPool(players);
+        List<Future<Player>> futures = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            Player player = new Player(ThreadLocalRandom.current().nextLong());
+            futures.add(pool.submit(() -> player.play(recordFrom, end)));
+        }
+        Report report = new Report(duration);
+        for (Future<Player> future : futures) {
+            report.add(future.get());
+        }
+        pool.shutdown();
+        return report;
+    }
+
+    /**
+     * Plays games one after another on its own thread, recording latencies of its requests.
+     */
+    private class Player {
+
+        private final SplittableRandom random;
+        private final Latencies creates = new Latencies();
+        private final Latencies moves = new Latencies();
+        private long games;
+        private long errors;
+
+        Player(long seed) {
+            this.random = new SplittableRandom(seed);
+        }
+
+        Player play(long recordFrom, long end) {
+            while (System.nanoTime() < end) {
+                try {
+                    playGame(recordFrom, end);
+                } catch (IOException | IllegalStateException e) {
+                    errors++;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            return this;
+        }
+
+        private void playGame(long recordFrom, long end) throws IOException, InterruptedException {
+            JsonNode created = send(HttpRequest.newBuilder(URI.create(baseUrl + GameController.GAMES_ENDPOINT)).POST(NO_BODY), creates, recordFrom);
+            String gameId = created.get("id").asText();
+
+            int[] pits = new Kalah().getPits();
+            boolean p1ToMove = true;
+            boolean finished = false;
+            while (!finished && System.nanoTime() < end) {
+                int pit = randomLegalPit(pits, p1ToMove);
+                URI uri = URI.create(baseUrl + GameController.GAMES_ENDPOINT + "/" + gameId + "/pits/" + pit);
+                JsonNode state = send(HttpRequest.newBuilder(uri).PUT(NO_BODY), moves, recordFrom);
+
+                JsonNode status = state.get("status");
+                for (int i = 0; i < pits.length; i++) {
+                    pits[i] = status.get(String.valueOf(i + Kalah.FIRST_PIT_IDX)).asInt();
+                }
+                p1ToMove = "P1".equals(state.get("whoseTurn").asText());
+                finished = state.get("gameFinished").asBoolean();
+            }
+            if (finished && System.nanoTime() >= recordFrom) {
+                games++;
+            }
+        }
+
+        private int randomLegalPit(int[] pits, boolean p1ToMove) {
+            int first = p1ToMove ? Kalah.FIRST_PIT_IDX : Kalah.P1_HOUSE_IDX + 1;
+            int[] legal = new int[Kalah.PLAYER_PITS];
+            int count = 0;
+            for (int pit = first; pit < first + Kalah.PLAYER_PITS; pit++) {
+                if (pits[pit - Kalah.FIRST_PIT_IDX] > 0) {
+                    legal[count++] = pit;
+                }
+            }
+            return legal[random.nextInt(count)];
+        }
+
+        private JsonNode send(HttpRequest.Builder request, Latencies latencies, long recordFrom) throws IOException, InterruptedException {
+            long sentAt = System.nanoTime();
+            HttpResponse<byte[]> response = client.send(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofByteArray());
+            long receivedAt = System.nanoTime();
+            if (sentAt >= recordFrom) {
+                latencies.record(receivedAt - sentAt);
+            }
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException("Unexpected status " + response.statusCode());
+            }
+            return MAPPER.readTree(response.body());
+        }
+    }
+
+    static class Report {
+
+        private final Duration duration;
+        private final Latencies creates = new Latencies();
+        private final Latencies moves = new Latencies();
+        private long games;
+        private long errors;
+
+        Report(Duration duration) {
+            this.duration = duration;
+        }
+
+        void add(Player player) {
+            creates.addAll(player.creates);
+            moves.addAll(player.moves);
+            games += player.games;
+            errors += player.errors;
+        }
+
+        void print(PrintStream out) {
+            double seconds = duration.toMillis() / 1000.0;
+            out.printf("%-28s %10s %10s %10s %10s %10s %10s%n", "endpoint", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+            print(out, "POST " + GameController.GAMES_ENDPOINT, creates, seconds);
+            print(out, "PUT " + GameController.MOVE_ENDPOINT, moves, seconds);
+            out.printf("finished games: %d (%.1f/s), errors: %d%n", games, games / seconds, errors);
+        }
+
+        private static void print(PrintStream out, String name, Latencies latencies, double seconds) {
+            latencies.sort();
+            out.printf("%-28s %10d %10.1f %10.2f %10.2f %10.2f %10.2f%n", name, latencies.count(), latencies.count() / seconds,
+                    latencies.percentileMillis(0.5), latencies.percentileMillis(0.99), latencies.percentileMillis(0.999),
+                    latencies.percentileMillis(1.0));
+        }
+    }
+
+    /**
+     * Every recorded latency in nanoseconds, exact percentiles are computed by sorting at the end.
+     */
+    static class Latencies {
+
+        private long[] values = new long[1024];
+        private int count;
+
+        void record(long nanos) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = nanos;
+        }
+
+        void addAll(Latencies other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.values[i]);
+            }
+        }
+
+        void sort() {
+            Arrays.sort(values, 0, count);
+        }
+
+        int count() {
+            return count;
+        }
+
+        /**
+         * @return nearest rank percentile of sorted values
+         */
+        double percentileMillis(double percentile) {
+            if (count == 0) {
+                return Double.NaN;
+            }
+            int rank = (int) Math.ceil(percentile * count);
+            return values[Math.max(rank, 1) - 1] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.nikowis.kalah.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+class GameMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final GameMetrics gameMetrics = new GameMetrics(registry);
+
+    @Test
+    void testSaveIsTimedUntilTheWriteCompletes() {
+        CompletableFuture<Void> queued = new CompletableFuture<>();
+
+        CompletableFuture<Void> saved = gameMetrics.timeSave(() -> queued);
+        Assertions.assertEquals(0, registry.get(GameMetrics.GAME_SAVE).timer().count(), "Queueing the write is not the save");
+
+        queued.complete(null);
+        Assertions.assertTrue(saved.isDone());
+        Assertions.assertEquals(1, registry.get(GameMetrics.GAME_SAVE).timer().count());
+    }
+}
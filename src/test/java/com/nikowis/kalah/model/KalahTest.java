@@ -1,12 +1,11 @@
 package com.nikowis.kalah.model;
 
+import com.nikowis.kalah.engine.KalahEngine;
 import com.nikowis.kalah.exception.*;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
 
 class KalahTest {
 
@@ -16,12 +15,8 @@ class KalahTest {
      * @param state state in order: [p1Pits, p1House, p2Pits, p2House]
      * @return kalah internal state
      */
-    private Map<Integer, Integer> arrayToKalahState(int[] state) {
-        HashMap<Integer, Integer> kalahState = new HashMap<>(state.length);
-        for (int i = 0; i < state.length; i++) {
-            kalahState.put(i + 1, state[i]);
-        }
-        return kalahState;
+    private int[] arrayToKalahState(int[] state) {
+        return KalahEngine.STANDARD.newBoard(state);
     }
 
     /**
@@ -32,20 +27,20 @@ class KalahTest {
      * @param kalah    actual kalah game
      */
     private void assertKalahState(int[] expected, Kalah kalah) {
-        Map<Integer, Integer> pits = kalah.pits;
+        int[] pits = kalah.getPits();
 
-        pits.forEach((k, v) -> {
-            Assertions.assertEquals(expected[k - 1], v, String.format("Incorrect kalah state pit #%d: %s", k, Arrays.toString(pits.values().toArray())));
-        });
+        for (int i = 0; i < pits.length; i++) {
+            Assertions.assertEquals(expected[i], pits[i], String.format("Incorrect kalah state pit #%d: %s", i + 1, Arrays.toString(pits)));
+        }
     }
 
     @Test
     public void testCreateGamePitsInitialized() {
         Kalah kalah = new Kalah();
-        Map<Integer, Integer> pits = kalah.pits;
+        int[] pits = kalah.getPits();
 
         Assertions.assertNotNull(pits, "Pits should be initialized");
-        Assertions.assertEquals(Kalah.PLAYER_PITS * 2 + 2, kalah.pits.size(), "Pits");
+        Assertions.assertEquals(Kalah.PLAYER_PITS * 2 + 2, pits.length, "Pits");
     }
 
     @Test
@@ -82,7 +77,7 @@ class KalahTest {
 
         kalah.move(Kalah.FIRST_PIT_IDX);
 
-        Assertions.assertEquals(0, kalah.pits.get(Kalah.FIRST_PIT_IDX));
+        Assertions.assertEquals(0, kalah.getStones(Kalah.FIRST_PIT_IDX));
     }
 
     @Test
@@ -111,7 +106,7 @@ class KalahTest {
     @Test
     public void testMoveSkipsOpponentsHouseP1() {
         Kalah kalah = new Kalah();
-        kalah.pits = arrayToKalahState(new int[]{1, 1, 1, 1, 1, 8, 0, 1, 1, 1, 1, 1, 1, 0});
+        kalah.board = arrayToKalahState(new int[]{1, 1, 1, 1, 1, 8, 0, 1, 1, 1, 1, 1, 1, 0});
         kalah.whoseTurn = Player.P1;
 
         kalah.move(6);
@@ -122,7 +117,7 @@ class KalahTest {
     @Test
     public void testMoveSkipsOpponentsHouseP2() {
         Kalah kalah = new Kalah();
-        kalah.pits = arrayToKalahState(new int[]{1, 1, 1, 1, 1, 1, 0, 1, 1, 1, 1, 1, 8, 0});
+        kalah.board = arrayToKalahState(new int[]{1, 1, 1, 1, 1, 1, 0, 1, 1, 1, 1, 1, 8, 0});
         kalah.whoseTurn = Player.P2;
 
         kalah.move(13);
@@ -133,7 +128,7 @@ class KalahTest {
     @Test
     public void testCantMoveFromEmpty() {
         Kalah kalah = new Kalah();
-        kalah.pits = arrayToKalahState(new int[]{0, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1});
+        kalah.board = arrayToKalahState(new int[]{0, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1});
         kalah.whoseTurn = Player.P1;
 
         Assertions.assertThrows(CantMoveFromEmptyPitException.class, () -> kalah.move(Kalah.FIRST_PIT_IDX), "Can't select an empty pit in a move");
@@ -142,7 +137,7 @@ class KalahTest {
     @Test
     public void testCantMoveOtherPlayersPitP1() {
         Kalah kalah = new Kalah();
-        kalah.pits = arrayToKalahState(new int[]{1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1});
+        kalah.board = arrayToKalahState(new int[]{1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1});
         kalah.whoseTurn = Player.P1;
 
         Assertions.assertThrows(NotYourPitException.class, () -> kalah.move(Kalah.P1_HOUSE_IDX + 1), "Shouldn't allow player to move other player pit");
@@ -151,7 +146,7 @@ class KalahTest {
     @Test
     public void testCantMoveOtherPlayersPitP2() {
         Kalah kalah = new Kalah();
-        kalah.pits = arrayToKalahState(new int[]{1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1});
+        kalah.board = arrayToKalahState(new int[]{1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1});
         kalah.whoseTurn = Player.P2;
 
         Assertions.assertThrows(NotYourPitException.class, () -> kalah.move(Kalah.FIRST_PIT_IDX), "Shouldn't allow player to move other player pit");
@@ -160,7 +155,7 @@ class KalahTest {
     @Test
     public void testCantMoveHouseP1() {
         Kalah kalah = new Kalah();
-        kalah.pits = arrayToKalahState(new int[]{1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1});
+        kalah.board = arrayToKalahState(new int[]{1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1});
         kalah.whoseTurn = Player.P1;
 
         Assertions.assertThrows(CantMoveHouseException.class, () -> kalah.move(Kalah.P1_HOUSE_IDX), "Can't select house pit in a move");
@@ -169,7 +164,7 @@ class KalahTest {
     @Test
     public void testCantMoveHouseP2() {
         Kalah kalah = new Kalah();
-        kalah.pits = arrayToKalahState(new int[]{1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1});
+        kalah.board = arrayToKalahState(new int[]{1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1});
         kalah.whoseTurn = Player.P2;
 
         Assertions.assertThrows(CantMoveHouseException.class, () -> kalah.move(Kalah.P2_HOUSE_IDX), "Can't select house pit in a move");
@@ -198,7 +193,7 @@ class KalahTest {
     @Test
     public void testMoveCapturesCorrectly() {
         Kalah kalah = new Kalah();
-        kalah.pits = arrayToKalahState(new int[]{0, 1, 1, 1, 1, 8, 0, 1, 1, 1, 1, 1, 3, 0});
+        kalah.board = arrayToKalahState(new int[]{0, 1, 1, 1, 1, 8, 0, 1, 1, 1, 1, 1, 3, 0});
         kalah.whoseTurn = Player.P1;
 
         kalah.move(6);
@@ -209,7 +204,7 @@ class KalahTest {
     @Test
     public void testMoveSecondPlayerCanCapture() {
         Kalah kalah = new Kalah();
-        kalah.pits = arrayToKalahState(new int[]{1, 1, 17, 1, 1, 0, 77, 5, 1, 1, 0, 12, 2, 0});
+        kalah.board = arrayToKalahState(new int[]{1, 1, 17, 1, 1, 0, 77, 5, 1, 1, 0, 12, 2, 0});
         kalah.whoseTurn = Player.P2;
 
         kalah.move(12);
@@ -220,7 +215,7 @@ class KalahTest {
     @Test
     public void testMoveFinishesInOpponentsEmptyPitDoesntCapture() {
         Kalah kalah = new Kalah();
-        kalah.pits = arrayToKalahState(new int[]{7, 7, 7, 7, 7, 3, 7, 1, 0, 1, 1, 1, 1, 1});
+        kalah.board = arrayToKalahState(new int[]{7, 7, 7, 7, 7, 3, 7, 1, 0, 1, 1, 1, 1, 1});
         kalah.whoseTurn = Player.P1;
 
         kalah.move(6);
@@ -231,7 +226,7 @@ class KalahTest {
     @Test
     public void testLastMoveShouldFinishGameSetWinnerAndMoveAllStones() {
         Kalah kalah = new Kalah();
-        kalah.pits = arrayToKalahState(new int[]{0, 0, 0, 0, 0, 1, 14, 1, 1, 1, 1, 1, 1, 5});
+        kalah.board = arrayToKalahState(new int[]{0, 0, 0, 0, 0, 1, 14, 1, 1, 1, 1, 1, 1, 5});
         kalah.whoseTurn = Player.P1;
 
         kalah.move(6);
@@ -244,7 +239,7 @@ class KalahTest {
     @Test
     public void testLastMoveOppositePlayerWins() {
         Kalah kalah = new Kalah();
-        kalah.pits = arrayToKalahState(new int[]{0, 0, 0, 0, 0, 1, 14, 2, 2, 2, 2, 2, 2, 5});
+        kalah.board = arrayToKalahState(new int[]{0, 0, 0, 0, 0, 1, 14, 2, 2, 2, 2, 2, 2, 5});
         kalah.whoseTurn = Player.P1;
 
         kalah.move(6);
@@ -257,7 +252,7 @@ class KalahTest {
     @Test
     public void testLastMoveWithCapture() {
         Kalah kalah = new Kalah();
-        kalah.pits = arrayToKalahState(new int[]{0, 0, 0, 0, 0, 8, 14, 1, 1, 1, 1, 1, 3, 5});
+        kalah.board = arrayToKalahState(new int[]{0, 0, 0, 0, 0, 8, 14, 1, 1, 1, 1, 1, 3, 5});
         kalah.whoseTurn = Player.P1;
 
         kalah.move(6);
@@ -270,7 +265,7 @@ class KalahTest {
     @Test
     public void testMoveCapturesOpponentsLastStonesAndEndsGame() {
         Kalah kalah = new Kalah();
-        kalah.pits = arrayToKalahState(new int[]{1, 0, 1, 1, 1, 1, 10, 0, 0, 0, 0, 15, 0, 5});
+        kalah.board = arrayToKalahState(new int[]{1, 0, 1, 1, 1, 1, 10, 0, 0, 0, 0, 15, 0, 5});
         kalah.whoseTurn = Player.P1;
 
         kalah.move(1);
@@ -283,7 +278,7 @@ class KalahTest {
     @Test
     public void testGameFinishedWithDraw() {
         Kalah kalah = new Kalah();
-        kalah.pits = arrayToKalahState(new int[]{0, 0, 0, 0, 1, 0, 8, 1, 0, 0, 0, 0, 0, 10});
+        kalah.board = arrayToKalahState(new int[]{0, 0, 0, 0, 1, 0, 8, 1, 0, 0, 0, 0, 0, 10});
         kalah.whoseTurn = Player.P1;
 
         kalah.move(5);
@@ -301,6 +296,59 @@ class KalahTest {
         Assertions.assertThrows(GameFinishedException.class, () -> kalah.move(6), "Shouldn't allow to move in a finished game");
     }
 
+    @Test
+    public void testMovesAreCounted() {
+        Kalah kalah = new Kalah();
+
+        kalah.move(1);
+        kalah.move(3);
+        Assertions.assertEquals(2, kalah.getMoveCount());
+
+        Assertions.assertThrows(NotYourPitException.class, () -> kalah.move(2));
+        Assertions.assertEquals(2, kalah.getMoveCount(), "Invalid moves should not be counted");
+    }
+
+    @Test
+    public void testTryMoveRejectsWithoutThrowing() {
+        Kalah kalah = new Kalah();
+
+        Assertions.assertEquals(MoveResult.NOT_YOUR_PIT, kalah.tryMove(Kalah.P1_HOUSE_IDX + 1));
+        Assertions.assertEquals(MoveResult.CANT_MOVE_HOUSE, kalah.tryMove(Kalah.P1_HOUSE_IDX));
+        Assertions.assertEquals(MoveResult.PIT_OUT_OF_BOUNDS, kalah.tryMove(Kalah.P2_HOUSE_IDX + 1));
+        Assertions.assertArrayEquals(new Kalah().getPits(), kalah.getPits(), "Rejected moves should not change the game");
+        Assertions.assertEquals(0, kalah.getMoveCount());
+
+        Assertions.assertEquals(MoveResult.OK, kalah.tryMove(3));
+        Assertions.assertEquals(0, kalah.getStones(3));
+        Assertions.assertEquals(MoveResult.NOT_YOUR_PIT, kalah.validateMove(3), "It is the other player's turn now");
+    }
+
+    @Test
+    public void testVariantValidatesItsOwnPits() {
+        Kalah kalah = new Kalah(null, KalahEngine.of(4, 3));
+
+        Assertions.assertEquals(10, kalah.getPitCount());
+        Assertions.assertEquals(MoveResult.CANT_MOVE_HOUSE, kalah.tryMove(5));
+        Assertions.assertEquals(MoveResult.NOT_YOUR_PIT, kalah.tryMove(6));
+        Assertions.assertEquals(MoveResult.CANT_MOVE_HOUSE, kalah.tryMove(10));
+        Assertions.assertEquals(MoveResult.PIT_OUT_OF_BOUNDS, kalah.tryMove(11));
+
+        Assertions.assertEquals(MoveResult.OK, kalah.tryMove(2));
+        assertKalahState(new int[]{3, 0, 4, 4, 1, 3, 3, 3, 3, 0}, kalah);
+        Assertions.assertEquals(Player.P1, kalah.getWhoseTurn(), "Last stone landed in the house");
+        Assertions.assertFalse(kalah.isStandard());
+        Assertions.assertThrows(IllegalStateException.class, kalah::packLow, "Variants have no packed encoding");
+        Assertions.assertThrows(IllegalStateException.class, kalah::packHigh, "Variants have no packed encoding");
+    }
+
+    @Test
+    public void testGameExceptionsHaveNoStackTrace() {
+        GameException rejection = MoveResult.NOT_YOUR_PIT.toException();
+
+        Assertions.assertTrue(rejection instanceof NotYourPitException);
+        Assertions.assertEquals(0, rejection.getStackTrace().length);
+    }
+
     @Test
     public void testGetNextPitIdx() {
         Assertions.assertEquals(Kalah.FIRST_PIT_IDX + 1, Kalah.getNextPitIdx(Kalah.FIRST_PIT_IDX));
@@ -0,0 +1,147 @@
+package com.nikowis.kalah.repository;
+
+import com.nikowis.kalah.model.Kalah;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BatchingGameWriterTest {
+
+    private MongoTemplate mongoTemplate;
+    private BulkOperations bulkOperations;
+    private BatchingGameWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of(new KalahReadConverter(), new KalahWriteConverter()));
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        mongoTemplate = mock(MongoTemplate.class);
+        bulkOperations = mock(BulkOperations.class);
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Kalah.class))).thenReturn(bulkOperations);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writer.shutdown();
+    }
+
+    private BatchingGameWriter writer(int batchSize, BatchingGameWriter.Durability durability) {
+        return new BatchingGameWriter(mongoTemplate, batchSize, Duration.ofHours(1), durability);
+    }
+
+    @Test
+    void testCoalescesWritesOfTheSameGame() {
+        writer = writer(100, BatchingGameWriter.Durability.MEMORY);
+        Kalah game = new Kalah(new ObjectId().toHexString());
+
+        writer.write(game);
+        game.move(1);
+        writer.write(game);
+        writer.flush();
+
+        verify(bulkOperations, times(1)).replaceOne(any(Query.class), any(Document.class), any(FindAndReplaceOptions.class));
+        verify(bulkOperations, times(1)).execute();
+    }
+
+    @Test
+    void testFlushAcknowledgesAfterBulkWrite() {
+        writer = writer(100, BatchingGameWriter.Durability.FLUSH);
+
+        CompletableFuture<Void> first = writer.write(new Kalah(new ObjectId().toHexString()));
+        CompletableFuture<Void> second = writer.write(new Kalah(new ObjectId().toHexString()));
+
+        Assertions.assertFalse(first.isDone(), "Write should wait for the flush");
+        writer.flush();
+        Assertions.assertTrue(first.isDone() && second.isDone(), "Both writes should be acknowledged by one flush");
+        verify(bulkOperations, times(2)).replaceOne(any(Query.class), any(Document.class), any(FindAndReplaceOptions.class));
+        verify(bulkOperations, times(1)).execute();
+    }
+
+    @Test
+    void testMemoryDurabilityServesUnflushedGames() {
+        writer = writer(100, BatchingGameWriter.Durability.MEMORY);
+        Kalah game = new Kalah(new ObjectId().toHexString());
+        game.move(3);
+
+        CompletableFuture<Void> written = writer.write(game);
+        game.move(8);
+
+        Assertions.assertTrue(written.isDone(), "Write should be acknowledged from memory");
+        Kalah unflushed = writer.findUnflushed(game.getId()).orElseThrow();
+        Assertions.assertEquals(0, unflushed.getStones(3));
+        Assertions.assertEquals(7, unflushed.getStones(8), "State should be captured when the write was queued");
+
+        writer.flush();
+        Assertions.assertTrue(writer.findUnflushed(game.getId()).isEmpty());
+    }
+
+    @Test
+    void testWritesDuringFlushAreNotLost() throws Exception {
+        writer = writer(Integer.MAX_VALUE, BatchingGameWriter.Durability.FLUSH);
+        List<Document> flushed = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            flushed.add(invocation.getArgument(1));
+            return bulkOperations;
+        }).when(bulkOperations).replaceOne(any(Query.class), any(Document.class), any(FindAndReplaceOptions.class));
+        Kalah game = new Kalah(new ObjectId().toHexString());
+        int writes = 20_000;
+
+        CompletableFuture<CompletableFuture<Void>> writing = CompletableFuture.supplyAsync(() -> {
+            CompletableFuture<Void> written = null;
+            for (int i = 0; i < writes; i++) {
+                written = writer.write(game);
+            }
+            return written;
+        });
+        while (!writing.isDone()) {
+            writer.flush();
+        }
+        CompletableFuture<Void> lastWrite = writing.get(10, TimeUnit.SECONDS);
+        writer.flush();
+
+        Assertions.assertTrue(lastWrite.isDone());
+        Document last = flushed.get(flushed.size() - 1);
+        Assertions.assertEquals(writes - 1L, last.get(KalahWriteConverter.VERSION), "The latest state should be stored");
+        Assertions.assertTrue(writer.findUnflushed(game.getId()).isEmpty());
+    }
+
+    @Test
+    void testFailedFlushKeepsGamesForTheNextBatch() {
+        writer = writer(100, BatchingGameWriter.Durability.FLUSH);
+        when(bulkOperations.execute()).thenThrow(new IllegalStateException("db down"));
+        Kalah game = new Kalah(new ObjectId().toHexString());
+
+        CompletableFuture<Void> written = writer.write(game);
+        writer.flush();
+
+        Assertions.assertTrue(written.isCompletedExceptionally());
+        Assertions.assertTrue(writer.findUnflushed(game.getId()).isPresent(), "Game should be retried");
+    }
+}
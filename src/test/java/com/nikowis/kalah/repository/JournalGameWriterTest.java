@@ -0,0 +1,119 @@
+package com.nikowis.kalah.repository;
+
+import com.nikowis.kalah.exception.GameConflictException;
+import com.nikowis.kalah.model.Kalah;
+import com.nikowis.kalah.model.MoveEvent;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class JournalGameWriterTest {
+
+    private static final int SNAPSHOT_INTERVAL = 3;
+
+    private KalahRepository kalahRepository;
+    private MongoTemplate mongoTemplate;
+    private JournalGameWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        kalahRepository = mock(KalahRepository.class);
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.indexOps(MoveEvent.class)).thenReturn(mock(IndexOperations.class));
+        when(kalahRepository.replaceIfVersionMatches(any(Kalah.class))).thenReturn(true);
+        writer = new JournalGameWriter(kalahRepository, mongoTemplate, SNAPSHOT_INTERVAL);
+    }
+
+    private static Kalah storedGame() {
+        Kalah game = new Kalah(new ObjectId().toHexString());
+        game.setVersion(0L);
+        return game;
+    }
+
+    private void move(Kalah game, int pit) {
+        game.move(pit);
+        writer.recordMove(game.getId(), pit);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testAppendsMovesWithoutRewritingTheGame() {
+        Kalah game = storedGame();
+        move(game, 1);
+        move(game, 3);
+
+        writer.write(game);
+
+        ArgumentCaptor<Collection<MoveEvent>> events = ArgumentCaptor.forClass(Collection.class);
+        verify(mongoTemplate).insert(events.capture(), eq(MoveEvent.class));
+        List<MoveEvent> appended = List.copyOf(events.getValue());
+        Assertions.assertEquals(2, appended.size());
+        Assertions.assertEquals(1, appended.get(0).getSeq());
+        Assertions.assertEquals(1, appended.get(0).getPit());
+        Assertions.assertEquals(2, appended.get(1).getSeq());
+        Assertions.assertEquals(3, appended.get(1).getPit());
+        verify(kalahRepository, never()).replaceIfVersionMatches(any(Kalah.class));
+    }
+
+    @Test
+    void testSnapshotsEveryIntervalMoves() {
+        Kalah game = storedGame();
+        move(game, 1);
+        move(game, 3);
+        writer.write(game);
+
+        move(game, 8);
+        writer.write(game);
+
+        verify(kalahRepository, times(1)).replaceIfVersionMatches(game);
+    }
+
+    @Test
+    void testDuplicateMoveIsAConflict() {
+        Kalah game = storedGame();
+        move(game, 1);
+        when(mongoTemplate.insert(anyCollection(), eq(MoveEvent.class))).thenThrow(new DuplicateKeyException("seq"));
+
+        Assertions.assertThrows(GameConflictException.class, () -> writer.write(game));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testRestoreReplaysMovesAfterTheSnapshot() {
+        Kalah snapshot = storedGame();
+        snapshot.move(1);
+        writer.recordMove(snapshot.getId(), 5);
+        when(mongoTemplate.find(any(Query.class), eq(MoveEvent.class))).thenReturn(List.of(
+                new MoveEvent(snapshot.getId(), 2, 3),
+                new MoveEvent(snapshot.getId(), 3, 8)));
+
+        Kalah restored = writer.restore(snapshot);
+
+        Kalah expected = new Kalah();
+        expected.move(1);
+        expected.move(3);
+        expected.move(8);
+        Assertions.assertEquals(3, restored.getMoveCount());
+        Assertions.assertArrayEquals(expected.getPits(), restored.getPits());
+        Assertions.assertEquals(expected.getWhoseTurn(), restored.getWhoseTurn());
+
+        writer.write(restored);
+        ArgumentCaptor<Collection<MoveEvent>> events = ArgumentCaptor.forClass(Collection.class);
+        verify(mongoTemplate).insert(events.capture(), eq(MoveEvent.class));
+        Assertions.assertTrue(events.getValue().isEmpty(), "Moves recorded before the restore should be discarded");
+    }
+}
@@ -0,0 +1,83 @@
+package com.nikowis.kalah.repository;
+
+import com.nikowis.kalah.engine.KalahEngine;
+import com.nikowis.kalah.model.Kalah;
+import com.nikowis.kalah.model.Player;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class KalahConvertersTest {
+
+    private final KalahWriteConverter writeConverter = new KalahWriteConverter();
+    private final KalahReadConverter readConverter = new KalahReadConverter();
+
+    @Test
+    public void testWritesPitsKeyedByPitNumber() {
+        Kalah kalah = new Kalah();
+        kalah.move(2);
+
+        Document document = writeConverter.convert(kalah);
+
+        Document pits = document.get("pits", Document.class);
+        Assertions.assertEquals(Kalah.PIT_COUNT, pits.size(), "Every pit should be stored");
+        Assertions.assertEquals(0, pits.getInteger("2"));
+        Assertions.assertEquals(7, pits.getInteger("3"));
+        Assertions.assertEquals(Player.P2.name(), document.getString("whoseTurn"));
+        Assertions.assertFalse(document.containsKey("_id"), "New games should let mongo generate the id");
+    }
+
+    @Test
+    public void testRoundTrip() {
+        String id = new ObjectId().toHexString();
+        int[] pits = {0, 0, 0, 0, 0, 0, 15, 0, 0, 0, 0, 0, 0, 11};
+        Kalah kalah = new Kalah(id, pits.clone(), Player.P2, true, Player.P1);
+        kalah.setVersion(12L);
+        kalah.setMoveCount(40L);
+        kalah.setBot(Player.P2);
+
+        Document document = writeConverter.convert(kalah);
+        Kalah read = readConverter.convert(document);
+
+        Assertions.assertEquals(new ObjectId(id), document.get("_id"), "Object ids should be stored as such");
+        Assertions.assertEquals(id, read.getId());
+        Assertions.assertArrayEquals(pits, read.getPits());
+        Assertions.assertEquals(Player.P2, read.getWhoseTurn());
+        Assertions.assertTrue(read.isGameFinished());
+        Assertions.assertEquals(Player.P1, read.getWinner());
+        Assertions.assertEquals(12L, read.getVersion());
+        Assertions.assertEquals(40L, read.getMoveCount());
+        Assertions.assertEquals(Player.P2, read.getBot());
+    }
+
+    @Test
+    public void testRoundTripOfVariant() {
+        Kalah kalah = new Kalah(new ObjectId().toHexString(), KalahEngine.of(4, 3));
+        kalah.move(4);
+
+        Document document = writeConverter.convert(kalah);
+        Kalah read = readConverter.convert(document);
+
+        Assertions.assertEquals(4, document.getInteger("playerPits"));
+        Assertions.assertEquals(3, document.getInteger("initialStones"));
+        Assertions.assertEquals(10, document.get("pits", Document.class).size());
+        Assertions.assertEquals(4, read.getPlayerPits());
+        Assertions.assertEquals(3, read.getInitialStones());
+        Assertions.assertArrayEquals(kalah.getPits(), read.getPits());
+        Assertions.assertFalse(writeConverter.convert(new Kalah()).containsKey("playerPits"), "Standard games should keep their shape");
+    }
+
+    @Test
+    public void testReadsGameWithoutWinner() {
+        Document document = writeConverter.convert(new Kalah());
+        document.put("_id", new ObjectId());
+
+        Kalah read = readConverter.convert(document);
+
+        Assertions.assertNull(read.getWinner());
+        Assertions.assertFalse(read.isGameFinished());
+        Assertions.assertArrayEquals(new Kalah().getPits(), read.getPits());
+        Assertions.assertEquals(0L, read.getVersion(), "Games stored without a version are the first version");
+    }
+}
@@ -0,0 +1,25 @@
+package com.nikowis.kalah.repository;
+
+import com.nikowis.kalah.model.Kalah;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class KalahRepositoryImplTest {
+
+    @Test
+    public void testReplacementIsTheWholeGameWithTheNextVersion() {
+        Kalah kalah = new Kalah(new ObjectId().toHexString());
+        kalah.setVersion(3L);
+        kalah.move(1);
+        Document document = new KalahWriteConverter().convert(kalah);
+
+        Document replacement = KalahRepositoryImpl.replacement(document, 3L);
+
+        Assertions.assertEquals(4L, replacement.get(KalahWriteConverter.VERSION));
+        Assertions.assertEquals(document.keySet(), replacement.keySet(), "Only the written fields should be stored");
+        Assertions.assertEquals(document.get(KalahWriteConverter.ID), replacement.get(KalahWriteConverter.ID));
+        Assertions.assertEquals(3L, document.get(KalahWriteConverter.VERSION), "The written document should be left unchanged");
+    }
+}
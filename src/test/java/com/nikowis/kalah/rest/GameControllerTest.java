@@ -1,5 +1,6 @@
 package com.nikowis.kalah.rest;
 
+import com.jayway.jsonpath.JsonPath;
 import com.nikowis.kalah.model.Kalah;
 import com.nikowis.kalah.model.Player;
 import com.nikowis.kalah.repository.KalahRepository;
@@ -8,17 +9,20 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.core.IsNull.notNullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest
 class GameControllerTest {
@@ -45,8 +49,12 @@ class GameControllerTest {
     public void createGameTest() throws Exception {
         long gamesBeforeRequest = kalahRepository.count();
 
-        mockMvc.perform(post(GameController.GAMES_ENDPOINT)
+        MvcResult result = mockMvc.perform(post(GameController.GAMES_ENDPOINT)
                 .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.id", is(notNullValue())))
                 .andExpect(jsonPath("$.url", is(notNullValue())));
@@ -56,13 +64,57 @@ class GameControllerTest {
         Assertions.assertEquals(gamesBeforeRequest + 1, gamesAfterRequest, "Games count should increment by one");
     }
 
+    @Test
+    public void createVariantGameTest() throws Exception {
+        MvcResult result = mockMvc.perform(post(GameController.GAMES_ENDPOINT)
+                .param(GameController.PITS_PARAM, "4")
+                .param(GameController.SEEDS_PARAM, "3"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MvcResult created = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isCreated())
+                .andReturn();
+
+        String id = JsonPath.read(created.getResponse().getContentAsString(), "$.id");
+        Kalah game = kalahRepository.findById(id).orElseThrow();
+        Assertions.assertEquals(4, game.getPlayerPits());
+        Assertions.assertEquals(3, game.getInitialStones());
+    }
+
+    @Test
+    public void createUnsupportedVariantTest() throws Exception {
+        mockMvc.perform(post(GameController.GAMES_ENDPOINT)
+                .param(GameController.PITS_PARAM, "9"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getHintTest() throws Exception {
+        Kalah newGame = kalahRepository.save(new Kalah());
+
+        MvcResult result = mockMvc.perform(get(GameController.HINT_ENDPOINT, newGame.getId())
+                .param(GameController.DEPTH_PARAM, "4"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pit", is(notNullValue())))
+                .andExpect(jsonPath("$.depth", is(4)));
+    }
+
     @Test
     public void makeAMoveTest() throws Exception {
         Kalah newGame = kalahRepository.save(new Kalah());
 
         int pitId = 2;
-        mockMvc.perform(put(GameController.MOVE_ENDPOINT, newGame.getId(), pitId)
+        MvcResult result = mockMvc.perform(put(GameController.MOVE_ENDPOINT, newGame.getId(), pitId)
                 .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id", is(newGame.getId())))
                 .andExpect(jsonPath("$.url", is(notNullValue())))
@@ -74,13 +126,17 @@ class GameControllerTest {
 
         Kalah updatedGame = kalahRepository.findById(newGame.getId()).get();
 
-        Assertions.assertEquals(0, updatedGame.getPits().get(pitId), "Pit after a move should be empty");
+        Assertions.assertEquals(0, updatedGame.getStones(pitId), "Pit after a move should be empty");
     }
 
     @Test
     public void makeAMoveNonExistingGameTest() throws Exception {
-        mockMvc.perform(put(GameController.MOVE_ENDPOINT, "randomid", 2)
+        MvcResult result = mockMvc.perform(put(GameController.MOVE_ENDPOINT, "randomid", 2)
                 .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.message", is(notNullValue())));
     }
@@ -89,9 +145,124 @@ class GameControllerTest {
     public void makeIncorrectMoveExistingGame() throws Exception {
         Kalah newGame = kalahRepository.save(new Kalah());
 
-        mockMvc.perform(put(GameController.MOVE_ENDPOINT, newGame.getId(), 200)
+        MvcResult result = mockMvc.perform(put(GameController.MOVE_ENDPOINT, newGame.getId(), 200)
                 .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.message", is(notNullValue())));
     }
+
+    @Test
+    public void makeMovesTest() throws Exception {
+        Kalah newGame = kalahRepository.save(new Kalah());
+
+        MvcResult result = mockMvc.perform(put(GameController.MOVES_ENDPOINT, newGame.getId())
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content("[1, 3, 3]"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(newGame.getId())))
+                .andExpect(jsonPath("$.status.3", is(0)))
+                .andExpect(jsonPath("$.whoseTurn", is(Player.P2.name())))
+                .andExpect(jsonPath("$.firstInvalidMove", is(2)));
+    }
+
+    @Test
+    public void createGamesTest() throws Exception {
+        long gamesBeforeRequest = kalahRepository.count();
+
+        MvcResult result = mockMvc.perform(post(GameController.BATCH_ENDPOINT)
+                .param(GameController.COUNT_PARAM, "3")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.length()", is(3)))
+                .andExpect(jsonPath("$[0].id", is(notNullValue())))
+                .andExpect(jsonPath("$[0].url", is(notNullValue())));
+
+        Assertions.assertEquals(gamesBeforeRequest + 3, kalahRepository.count(), "Games count should increment by three");
+    }
+
+    @Test
+    public void createGamesNdjsonTest() throws Exception {
+        MvcResult result = mockMvc.perform(post(GameController.BATCH_ENDPOINT)
+                .param(GameController.COUNT_PARAM, "2")
+                .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MvcResult streamed = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isCreated())
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        streamed.getAsyncResult();
+
+        String[] lines = streamed.getResponse().getContentAsString().split("\n");
+        Assertions.assertEquals(2, lines.length, "One game per line");
+    }
+
+    @Test
+    public void getGameTest() throws Exception {
+        Kalah newGame = new Kalah();
+        newGame.move(3);
+        newGame = kalahRepository.save(newGame);
+
+        MvcResult result = mockMvc.perform(get(GameController.GAME_ENDPOINT, newGame.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.id", is(newGame.getId())))
+                .andExpect(jsonPath("$.status.3", is(0)))
+                .andExpect(jsonPath("$.moveCount", is(1)));
+    }
+
+    @Test
+    public void getGameNotModifiedTest() throws Exception {
+        Kalah newGame = kalahRepository.save(new Kalah());
+
+        MvcResult result = mockMvc.perform(get(GameController.GAME_ENDPOINT, newGame.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void subscribeSendsCurrentStateTest() throws Exception {
+        Kalah newGame = kalahRepository.save(new Kalah());
+
+        MvcResult result = mockMvc.perform(get(GameController.EVENTS_ENDPOINT, newGame.getId())
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MvcResult stream = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // frames are written by the sender thread
+        String events = stream.getResponse().getContentAsString();
+        for (int i = 0; i < 50 && events.isEmpty(); i++) {
+            Thread.sleep(20);
+            events = stream.getResponse().getContentAsString();
+        }
+        Assertions.assertTrue(events.startsWith("id: 0\nevent: state\ndata: {"), events);
+        Assertions.assertTrue(events.contains(newGame.getId()), events);
+    }
 }
\ No newline at end of file
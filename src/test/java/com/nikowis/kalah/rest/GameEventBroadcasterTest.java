@@ -0,0 +1,49 @@
+package com.nikowis.kalah.rest;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class GameEventBroadcasterTest {
+
+    private static final long SEND_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    @Test
+    void testStalledSendIsInterrupted() throws InterruptedException {
+        GameEventBroadcaster.Subscriber subscriber = new GameEventBroadcaster.Subscriber("game", new ResponseBodyEmitter(), 1);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Thread sender = new Thread(() -> {
+            subscriber.startSend();
+            sending.countDown();
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            } finally {
+                subscriber.endSend();
+            }
+        });
+        sender.start();
+        Assertions.assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        Assertions.assertFalse(subscriber.interruptIfStalled(System.nanoTime(), SEND_TIMEOUT_NANOS), "The send is within its deadline");
+        Assertions.assertTrue(subscriber.interruptIfStalled(System.nanoTime() + SEND_TIMEOUT_NANOS, SEND_TIMEOUT_NANOS));
+
+        Assertions.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        sender.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    @Test
+    void testIdleSubscriberIsNotStalled() {
+        GameEventBroadcaster.Subscriber subscriber = new GameEventBroadcaster.Subscriber("game", new ResponseBodyEmitter(), 1);
+        subscriber.startSend();
+        subscriber.endSend();
+
+        Assertions.assertFalse(subscriber.interruptIfStalled(System.nanoTime() + SEND_TIMEOUT_NANOS, SEND_TIMEOUT_NANOS));
+        Assertions.assertFalse(Thread.currentThread().isInterrupted());
+    }
+}
@@ -0,0 +1,82 @@
+package com.nikowis.kalah.rest;
+
+import com.nikowis.kalah.exception.GameNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.MessageSource;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.AbstractApplicationContext;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.reactive.config.EnableWebFlux;
+
+import java.util.Locale;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RestExceptionHandlerTest {
+
+    private RestExceptionHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        handler = new RestExceptionHandler();
+        ReflectionTestUtils.setField(handler, "messageSource", messageSource());
+    }
+
+    private static StaticMessageSource messageSource() {
+        StaticMessageSource messageSource = new StaticMessageSource();
+        messageSource.addMessage(GameNotFoundException.class.getSimpleName(), Locale.ENGLISH, "Game not found");
+        messageSource.addMessage(GameNotFoundException.class.getSimpleName(), Locale.GERMAN, "Spiel nicht gefunden");
+        return messageSource;
+    }
+
+    @Test
+    void testServletErrorFollowsAcceptLanguage() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new MissingGameController()).setControllerAdvice(handler).build();
+
+        mockMvc.perform(get("/missing").header(HttpHeaders.ACCEPT_LANGUAGE, "de"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Spiel nicht gefunden"));
+        mockMvc.perform(get("/missing").header(HttpHeaders.ACCEPT_LANGUAGE, "en"))
+                .andExpect(jsonPath("$.message").value("Game not found"));
+    }
+
+    @Test
+    void testReactiveErrorFollowsAcceptLanguage() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.registerBean(AbstractApplicationContext.MESSAGE_SOURCE_BEAN_NAME, MessageSource.class, RestExceptionHandlerTest::messageSource);
+        context.register(WebFluxConfig.class, MissingGameController.class, RestExceptionHandler.class);
+        context.refresh();
+        try (context) {
+            WebTestClient client = WebTestClient.bindToApplicationContext(context).build();
+
+            client.get().uri("/missing").header(HttpHeaders.ACCEPT_LANGUAGE, "de").exchange()
+                    .expectStatus().isNotFound()
+                    .expectBody().jsonPath("$.message").isEqualTo("Spiel nicht gefunden");
+            client.get().uri("/missing").header(HttpHeaders.ACCEPT_LANGUAGE, "en").exchange()
+                    .expectBody().jsonPath("$.message").isEqualTo("Game not found");
+        }
+    }
+
+    @EnableWebFlux
+    static class WebFluxConfig {
+    }
+
+    @RestController
+    static class MissingGameController {
+
+        @GetMapping("/missing")
+        String missing() {
+            throw new GameNotFoundException();
+        }
+    }
+}
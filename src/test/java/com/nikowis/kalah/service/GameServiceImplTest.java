@@ -1,53 +1,156 @@
 package com.nikowis.kalah.service;
 
+import com.nikowis.kalah.ai.KalahAi;
+import com.nikowis.kalah.ai.SearchAlgorithm;
 import com.nikowis.kalah.dto.GameCreatedDTO;
 import com.nikowis.kalah.dto.GameStateDto;
+import com.nikowis.kalah.dto.HintDto;
+import com.nikowis.kalah.dto.MovesResultDto;
+import com.nikowis.kalah.exception.GameConflictException;
+import com.nikowis.kalah.exception.GameFinishedException;
 import com.nikowis.kalah.exception.GameNotFoundException;
+import com.nikowis.kalah.exception.InvalidGameCountException;
+import com.nikowis.kalah.exception.InvalidHintDepthException;
+import com.nikowis.kalah.exception.InvalidVariantException;
+import com.nikowis.kalah.exception.NotYourPitException;
+import com.nikowis.kalah.exception.VariantNotSupportedException;
+import com.nikowis.kalah.metrics.GameMetrics;
 import com.nikowis.kalah.model.Kalah;
+import com.nikowis.kalah.model.MoveResult;
+import com.nikowis.kalah.model.Player;
+import com.nikowis.kalah.repository.GameCache;
 import com.nikowis.kalah.repository.KalahRepository;
+import com.nikowis.kalah.repository.SyncGameWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 class GameServiceImplTest {
 
+    private static final int MAX_RETRIES = 2;
+    private static final int MAX_BATCH_COUNT = 100;
+
     private GameService gameService;
 
     private KalahRepository repositoryMock;
 
+    private GameCache gameCache;
+
+    private MoveExecutor moveExecutor;
+
+    private KalahAi kalahAi;
+
+    private MeterRegistry meterRegistry;
+
+    private GameMetrics gameMetrics;
+
+    private final List<GameStateDto> publishedStates = new CopyOnWriteArrayList<>();
+
     @BeforeEach
-    void initService() {
+    void initService() throws IOException {
         repositoryMock = mock(KalahRepository.class);
-        gameService = new GameServiceImpl(repositoryMock);
+        gameCache = new GameCache(100, Duration.ofMinutes(1));
+        moveExecutor = new MoveExecutor(2, 100);
+        meterRegistry = new SimpleMeterRegistry();
+        gameMetrics = new GameMetrics(meterRegistry);
+        kalahAi = new KalahAi(1, Duration.ofSeconds(1), 4, 10, 1, "", "", SearchAlgorithm.ALPHA_BETA, 0);
+        gameService = new GameServiceImpl(repositoryMock, gameCache, new SyncGameWriter(repositoryMock), moveExecutor,
+                List.of(publishedStates::add), gameMetrics, kalahAi, MAX_RETRIES, MAX_BATCH_COUNT);
         when(repositoryMock.save(any(Kalah.class))).then(inv -> inv.getArgument(0));
+        when(repositoryMock.replaceIfVersionMatches(any(Kalah.class))).thenReturn(true);
+    }
+
+    @AfterEach
+    void shutdownExecutor() throws InterruptedException {
+        moveExecutor.shutdown();
+        kalahAi.shutdown();
+    }
+
+    /**
+     * Waits for the result rethrowing the exception the future failed with.
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw (RuntimeException) e.getCause();
+        }
     }
 
     @Test
     void testCreateGameReturnsObject() {
-        GameCreatedDTO createdGame = gameService.createGame();
+        GameCreatedDTO createdGame = join(gameService.createGame(null, 6, 6));
 
         Assertions.assertNotNull(createdGame, "Game should not be null");
     }
 
     @Test
     void testCreateGameSavesKalahToDb() {
-        gameService.createGame();
+        join(gameService.createGame(null, 6, 6));
 
         verify(repositoryMock).save(any(Kalah.class));
     }
 
+    @Test
+    void testCreateGameOfVariant() {
+        GameCreatedDTO created = join(gameService.createGame(null, 4, 3));
+
+        GameStateDto state = join(gameService.makeAMove(created.getId(), 1));
+
+        Assertions.assertArrayEquals(new int[]{0, 4, 4, 4, 0, 3, 3, 3, 3, 0}, state.getStatus());
+        Assertions.assertEquals(Player.P2, state.getWhoseTurn());
+        Assertions.assertThrows(VariantNotSupportedException.class, () -> join(gameService.getHint(created.getId(), null)));
+    }
+
+    @Test
+    void testCreateGameRejectsUnsupportedVariants() {
+        Assertions.assertThrows(InvalidVariantException.class, () -> gameService.createGame(null, 9, 6));
+        Assertions.assertThrows(InvalidVariantException.class, () -> gameService.createGame(null, 6, 2));
+        Assertions.assertThrows(VariantNotSupportedException.class, () -> gameService.createGame(Player.P2, 8, 6));
+        verifyNoInteractions(repositoryMock);
+    }
+
+    @Test
+    void testCreateGamesInsertsAllGamesAtOnce() {
+        List<GameCreatedDTO> createdGames = join(gameService.createGames(MAX_BATCH_COUNT));
+
+        Assertions.assertEquals(MAX_BATCH_COUNT, createdGames.size());
+        Assertions.assertEquals(MAX_BATCH_COUNT, createdGames.stream().map(GameCreatedDTO::getId).distinct().count(), "Ids should be unique");
+        verify(repositoryMock, times(1)).insert(anyList());
+        verify(repositoryMock, never()).save(any(Kalah.class));
+        Assertions.assertEquals(0, gameCache.size(), "Created games should not be cached");
+    }
+
+    @Test
+    void testCreateGamesRejectsCountOutOfRange() {
+        Assertions.assertThrows(InvalidGameCountException.class, () -> gameService.createGames(0));
+        Assertions.assertThrows(InvalidGameCountException.class, () -> gameService.createGames(MAX_BATCH_COUNT + 1));
+        verifyNoInteractions(repositoryMock);
+    }
+
     @Test
     void testMakeAMoveReturnsObject() {
         String gameId = "12312";
         Integer pitId = 2;
         when(repositoryMock.findById(eq(gameId))).then(inv -> Optional.of(new Kalah()));
 
-        GameStateDto result = gameService.makeAMove(gameId, pitId);
+        GameStateDto result = join(gameService.makeAMove(gameId, pitId));
 
         Assertions.assertNotNull(result, "Make a move result should not be null");
     }
@@ -58,7 +161,7 @@ class GameServiceImplTest {
         Integer pitId = 2;
         when(repositoryMock.findById(eq(gameId))).then(inv -> Optional.of(new Kalah()));
 
-        gameService.makeAMove(gameId, pitId);
+        join(gameService.makeAMove(gameId, pitId));
 
         verify(repositoryMock).findById(eq(gameId));
     }
@@ -69,7 +172,7 @@ class GameServiceImplTest {
 
         String gameId = "12312";
         Integer pitId = 2;
-        gameService.makeAMove(gameId, pitId);
+        join(gameService.makeAMove(gameId, pitId));
 
         verify(repositoryMock).save(any(Kalah.class));
     }
@@ -77,13 +180,14 @@ class GameServiceImplTest {
     @Test
     void testMakeAMoveCallsKalah() {
         Kalah kalahMock = mock(Kalah.class);
+        when(kalahMock.tryMove(anyInt())).thenReturn(MoveResult.OK);
         when(repositoryMock.findById(any(String.class))).then(inv -> Optional.of(kalahMock));
 
         String gameId = "12312";
         Integer pitId = 2;
-        gameService.makeAMove(gameId, pitId);
+        join(gameService.makeAMove(gameId, pitId));
 
-        verify(kalahMock).move(eq(pitId));
+        verify(kalahMock).tryMove(eq(pitId));
     }
 
     @Test
@@ -92,6 +196,280 @@ class GameServiceImplTest {
         Integer pitId = 2;
         when(repositoryMock.findById(eq(gameId))).then(inv -> Optional.empty());
 
-        Assertions.assertThrows(GameNotFoundException.class, () -> gameService.makeAMove(gameId, pitId), "Random game id should throw an exception");
+        Assertions.assertThrows(GameNotFoundException.class, () -> join(gameService.makeAMove(gameId, pitId)), "Random game id should throw an exception");
+    }
+
+    @Test
+    void testMakeAMoveReadsCachedGame() {
+        String gameId = "12312";
+        when(repositoryMock.findById(eq(gameId))).then(inv -> Optional.of(new Kalah()));
+
+        join(gameService.makeAMove(gameId, 2));
+        GameStateDto result = join(gameService.makeAMove(gameId, 9));
+
+        verify(repositoryMock, times(1)).findById(eq(gameId));
+        verify(repositoryMock, times(2)).save(any(Kalah.class));
+        Assertions.assertEquals(0, result.getStatus()[8], "Second move should be applied to the cached game");
+        Assertions.assertEquals(1, gameCache.stats().hitCount());
+        Assertions.assertEquals(1, gameCache.stats().missCount());
+    }
+
+    @Test
+    void testCreateGameIsCached() {
+        GameCreatedDTO created = join(gameService.createGame(null, 6, 6));
+        gameService.makeAMove(created.getId(), 1);
+
+        verify(repositoryMock, never()).findById(any(String.class));
+    }
+
+    @Test
+    void testFailedSaveEvictsTheGame() {
+        String gameId = "12312";
+        when(repositoryMock.findById(eq(gameId))).then(inv -> Optional.of(new Kalah()));
+        when(repositoryMock.save(any(Kalah.class))).thenThrow(new IllegalStateException("db down"));
+
+        Assertions.assertThrows(IllegalStateException.class, () -> join(gameService.makeAMove(gameId, 2)));
+
+        Assertions.assertEquals(0, gameCache.size(), "Game not saved should not stay cached");
+    }
+
+    private Kalah storedGame(long version) {
+        Kalah kalah = new Kalah("12312");
+        kalah.setVersion(version);
+        return kalah;
+    }
+
+    @Test
+    void testMakeAMoveUpdatesVersionedGameConditionally() {
+        String gameId = "12312";
+        when(repositoryMock.findById(eq(gameId))).then(inv -> Optional.of(storedGame(3)));
+
+        join(gameService.makeAMove(gameId, 2));
+
+        verify(repositoryMock).replaceIfVersionMatches(any(Kalah.class));
+        verify(repositoryMock, never()).save(any(Kalah.class));
+    }
+
+    @Test
+    void testMakeAMoveRetriesOnConflictWithReloadedGame() {
+        String gameId = "12312";
+        when(repositoryMock.findById(eq(gameId))).then(inv -> Optional.of(storedGame(3)));
+        when(repositoryMock.replaceIfVersionMatches(any(Kalah.class))).thenReturn(false, true);
+
+        GameStateDto result = join(gameService.makeAMove(gameId, 2));
+
+        verify(repositoryMock, times(2)).findById(eq(gameId));
+        verify(repositoryMock, times(2)).replaceIfVersionMatches(any(Kalah.class));
+        Assertions.assertEquals(7, result.getStatus()[2], "Move should be applied once to the reloaded game");
+    }
+
+    @Test
+    void testMakeAMoveGivesUpAfterMaxRetries() {
+        String gameId = "12312";
+        when(repositoryMock.findById(eq(gameId))).then(inv -> Optional.of(storedGame(3)));
+        when(repositoryMock.replaceIfVersionMatches(any(Kalah.class))).thenReturn(false);
+
+        Assertions.assertThrows(GameConflictException.class, () -> join(gameService.makeAMove(gameId, 2)));
+
+        verify(repositoryMock, times(MAX_RETRIES + 1)).replaceIfVersionMatches(any(Kalah.class));
+        Assertions.assertEquals(0, gameCache.size(), "Conflicting game should not stay cached");
+    }
+
+    @Test
+    void testMovesForOneGameRunInOrderOnItsStripe() {
+        String gameId = "12312";
+        when(repositoryMock.findById(eq(gameId))).then(inv -> Optional.of(new Kalah()));
+
+        CompletableFuture<GameStateDto> first = gameService.makeAMove(gameId, 2);
+        CompletableFuture<GameStateDto> second = gameService.makeAMove(gameId, 9);
+        CompletableFuture<GameStateDto> third = gameService.makeAMove(gameId, 1);
+
+        Assertions.assertArrayEquals(new int[]{7, 0, 7, 7, 7, 7, 1, 7, 0, 7, 7, 7, 7, 1}, join(second).getStatus());
+        Assertions.assertArrayEquals(new int[]{0, 1, 8, 8, 8, 8, 2, 8, 0, 7, 7, 7, 7, 1}, join(third).getStatus());
+        Assertions.assertEquals(0, join(first).getStatus()[1]);
+        long processed = moveExecutor.getStripes().stream().mapToLong(MoveExecutor.Stripe::getProcessed).sum();
+        Assertions.assertEquals(3, processed, "Every move should go through a stripe");
+    }
+
+    @Test
+    void testMakeMovesLoadsAndSavesOnce() {
+        String gameId = "12312";
+        when(repositoryMock.findById(eq(gameId))).then(inv -> Optional.of(new Kalah()));
+
+        MovesResultDto result = join(gameService.makeMoves(gameId, new int[]{1, 3}));
+
+        verify(repositoryMock, times(1)).findById(eq(gameId));
+        verify(repositoryMock, times(1)).save(any(Kalah.class));
+        Assertions.assertNull(result.getFirstInvalidMove());
+        Assertions.assertEquals(Player.P2, result.getWhoseTurn(), "Move 1 ends in the house so P1 moves twice");
+        Assertions.assertEquals(0, result.getStatus()[2]);
+    }
+
+    @Test
+    void testMakeMovesStopsAtFirstInvalidMove() {
+        String gameId = "12312";
+        when(repositoryMock.findById(eq(gameId))).then(inv -> Optional.of(new Kalah()));
+
+        MovesResultDto result = join(gameService.makeMoves(gameId, new int[]{3, 3, 9}));
+
+        Assertions.assertEquals(1, result.getFirstInvalidMove());
+        Assertions.assertEquals(Player.P2, result.getWhoseTurn(), "Moves after the invalid one should not be applied");
+        Assertions.assertEquals(7, result.getStatus()[8]);
+    }
+
+    @Test
+    void testMakeMovesWithInvalidFirstMoveThrows() {
+        String gameId = "12312";
+        when(repositoryMock.findById(eq(gameId))).then(inv -> Optional.of(new Kalah()));
+
+        Assertions.assertThrows(NotYourPitException.class, () -> join(gameService.makeMoves(gameId, new int[]{9, 1})));
+
+        verify(repositoryMock, never()).save(any(Kalah.class));
+    }
+
+    @Test
+    void testGetMoveCountDoesNotLoadTheGame() {
+        String gameId = "12312";
+        when(repositoryMock.findMoveCount(eq(gameId))).thenReturn(Optional.of(7L));
+
+        Assertions.assertEquals(7L, join(gameService.getMoveCount(gameId)));
+        verify(repositoryMock, never()).findById(any());
+    }
+
+    @Test
+    void testGetMoveCountPrefersCachedGame() {
+        String gameId = "12312";
+        when(repositoryMock.findById(eq(gameId))).then(inv -> Optional.of(new Kalah()));
+        join(gameService.makeAMove(gameId, 1));
+
+        Assertions.assertEquals(1L, join(gameService.getMoveCount(gameId)));
+        verify(repositoryMock, never()).findMoveCount(any());
+    }
+
+    @Test
+    void testGetMoveCountOfMissingGameThrows() {
+        when(repositoryMock.findMoveCount(any())).thenReturn(Optional.empty());
+
+        Assertions.assertThrows(GameNotFoundException.class, () -> join(gameService.getMoveCount("12312")));
+    }
+
+    @Test
+    void testSavedMovePublishesState() {
+        String gameId = "12312";
+        when(repositoryMock.findById(eq(gameId))).then(inv -> Optional.of(new Kalah(gameId)));
+
+        join(gameService.makeAMove(gameId, 1));
+
+        Assertions.assertEquals(1, publishedStates.size());
+        Assertions.assertEquals(gameId, publishedStates.get(0).getId());
+        Assertions.assertEquals(1L, publishedStates.get(0).getMoveCount());
+    }
+
+    @Test
+    void testInvalidMovePublishesNothing() {
+        String gameId = "12312";
+        when(repositoryMock.findById(eq(gameId))).then(inv -> Optional.of(new Kalah(gameId)));
+
+        Assertions.assertThrows(NotYourPitException.class, () -> join(gameService.makeAMove(gameId, 9)));
+
+        Assertions.assertTrue(publishedStates.isEmpty());
+    }
+
+    @Test
+    void testMovesAndLoadsAreTimed() {
+        String gameId = "12312";
+        when(repositoryMock.findById(eq(gameId))).then(inv -> Optional.of(new Kalah(gameId)));
+
+        join(gameService.makeMoves(gameId, new int[]{1, 3}));
+
+        Assertions.assertEquals(2, meterRegistry.get(GameMetrics.ENGINE_MOVE).timer().count());
+        Assertions.assertEquals(1, meterRegistry.get(GameMetrics.GAME_LOAD).timer().count());
+        Assertions.assertEquals(1, meterRegistry.get(GameMetrics.GAME_SAVE).timer().count());
+    }
+
+    @Test
+    void testInvalidMoveAfterTheFirstIsCounted() {
+        String gameId = "12312";
+        when(repositoryMock.findById(eq(gameId))).then(inv -> Optional.of(new Kalah(gameId)));
+
+        join(gameService.makeMoves(gameId, new int[]{3, 3}));
+
+        Assertions.assertEquals(1, meterRegistry.get(GameMetrics.INVALID_MOVES).tag("exception", "NotYourPitException").counter().count());
+    }
+
+    @Test
+    void testFinishingMoveCountsFinishedGame() {
+        String gameId = "12312";
+        Kalah almostFinished = new Kalah(gameId, new int[]{0, 0, 0, 0, 0, 1, 14, 1, 1, 1, 1, 1, 1, 5}, Player.P1, false, null);
+        when(repositoryMock.findById(eq(gameId))).thenReturn(Optional.of(almostFinished));
+
+        join(gameService.makeAMove(gameId, 6));
+
+        Assertions.assertEquals(1.0, meterRegistry.get(GameMetrics.GAMES_FINISHED).tag("winner", Player.P1.name()).counter().count());
+    }
+
+    @Test
+    void testCreatedGamesAreCounted() {
+        join(gameService.createGame(null, 6, 6));
+        join(gameService.createGames(3));
+
+        Assertions.assertEquals(4.0, meterRegistry.get(GameMetrics.GAMES_CREATED).counter().count());
+    }
+
+    @Test
+    void testBotRepliesToTheMove() {
+        GameCreatedDTO created = join(gameService.createGame(Player.P2, 6, 6));
+
+        GameStateDto result = join(gameService.makeAMove(created.getId(), 2));
+
+        Assertions.assertEquals(Player.P1, result.getWhoseTurn(), "Bot should move until it is the other player's turn");
+        Assertions.assertTrue(result.getMoveCount() >= 2);
+        Assertions.assertEquals(Player.P2, result.getBot());
+    }
+
+    @Test
+    void testBotOpensTheGameAsFirstPlayer() {
+        GameCreatedDTO created = join(gameService.createGame(Player.P1, 6, 6));
+
+        GameStateDto state = join(gameService.getGame(created.getId()));
+
+        Assertions.assertEquals(Player.P2, state.getWhoseTurn());
+        Assertions.assertTrue(state.getMoveCount() >= 1);
+    }
+
+    @Test
+    void testMoveOnBotsTurnIsRejected() {
+        String gameId = "12312";
+        Kalah game = new Kalah(gameId);
+        game.setBot(Player.P1);
+        when(repositoryMock.findById(eq(gameId))).thenReturn(Optional.of(game));
+
+        Assertions.assertThrows(NotYourPitException.class, () -> join(gameService.makeAMove(gameId, 1)));
+    }
+
+    @Test
+    void testHintSuggestsAPitOfThePlayerToMove() {
+        String gameId = "12312";
+        when(repositoryMock.findById(eq(gameId))).thenReturn(Optional.of(new Kalah(gameId)));
+
+        HintDto hint = join(gameService.getHint(gameId, 3));
+
+        Assertions.assertTrue(hint.getPit() >= 1 && hint.getPit() <= 6, "Hint should be a pit of P1");
+        Assertions.assertEquals(3, hint.getDepth());
+        verify(repositoryMock, never()).save(any(Kalah.class));
+    }
+
+    @Test
+    void testHintOfFinishedGameThrows() {
+        String gameId = "12312";
+        Kalah finished = new Kalah(gameId, new int[]{0, 0, 0, 0, 0, 0, 40, 0, 0, 0, 0, 0, 0, 32}, Player.P1, true, Player.P1);
+        when(repositoryMock.findById(eq(gameId))).thenReturn(Optional.of(finished));
+
+        Assertions.assertThrows(GameFinishedException.class, () -> join(gameService.getHint(gameId, null)));
+    }
+
+    @Test
+    void testHintRejectsDepthBelowOne() {
+        Assertions.assertThrows(InvalidHintDepthException.class, () -> gameService.getHint("12312", 0));
     }
 }
\ No newline at end of file
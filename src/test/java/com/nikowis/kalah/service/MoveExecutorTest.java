@@ -0,0 +1,61 @@
+package com.nikowis.kalah.service;
+
+import com.nikowis.kalah.exception.ServerBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class MoveExecutorTest {
+
+    private static final String GAME_ID = "6117e3d3f86b8c0285711b65";
+
+    private MoveExecutor moveExecutor;
+
+    @BeforeEach
+    void setUp() {
+        moveExecutor = new MoveExecutor(1, 1);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        moveExecutor.shutdown();
+    }
+
+    @Test
+    void testFullQueueIsRejected() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> blocking = moveExecutor.submit(GAME_ID, () -> {
+            running.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Assertions.assertTrue(running.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Integer> queued = moveExecutor.submit(GAME_ID, () -> 1);
+
+        Assertions.assertThrows(ServerBusyException.class, () -> moveExecutor.submit(GAME_ID, () -> 2));
+
+        release.countDown();
+        Assertions.assertTrue(blocking.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testPublishesTheLongestWait() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        moveExecutor.bindTo(registry);
+
+        moveExecutor.submit(GAME_ID, () -> 1).get(5, TimeUnit.SECONDS);
+
+        Assertions.assertNotNull(registry.find("kalah.stripes.wait.max").tag("stripe", "0").timeGauge());
+    }
+}
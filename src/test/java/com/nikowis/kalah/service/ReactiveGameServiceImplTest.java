@@ -0,0 +1,155 @@
+package com.nikowis.kalah.service;
+
+import com.nikowis.kalah.ai.KalahAi;
+import com.nikowis.kalah.ai.SearchAlgorithm;
+import com.nikowis.kalah.exception.GameConflictException;
+import com.nikowis.kalah.exception.GameNotFoundException;
+import com.nikowis.kalah.exception.InvalidGameCountException;
+import com.nikowis.kalah.exception.InvalidVariantException;
+import com.nikowis.kalah.exception.NotYourPitException;
+import com.nikowis.kalah.exception.PitOutOfBoundsException;
+import com.nikowis.kalah.metrics.GameMetrics;
+import com.nikowis.kalah.model.Kalah;
+import com.nikowis.kalah.model.Player;
+import com.nikowis.kalah.repository.ReactiveKalahRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class ReactiveGameServiceImplTest {
+
+    private static final int MAX_RETRIES = 2;
+    private static final int MAX_BATCH_COUNT = 100;
+    private static final String GAME_ID = "12312";
+
+    private ReactiveKalahRepository repositoryMock;
+
+    private ReactiveGameService gameService;
+
+    private KalahAi kalahAi;
+
+    @BeforeEach
+    void initService() throws IOException {
+        repositoryMock = mock(ReactiveKalahRepository.class);
+        kalahAi = new KalahAi(1, Duration.ofSeconds(1), 4, 10, 1, "", "", SearchAlgorithm.ALPHA_BETA, 0);
+        gameService = new ReactiveGameServiceImpl(repositoryMock, kalahAi, new GameMetrics(new SimpleMeterRegistry()), MAX_RETRIES, MAX_BATCH_COUNT);
+        when(repositoryMock.findById(GAME_ID)).thenReturn(Mono.fromSupplier(() -> storedGame()));
+    }
+
+    @AfterEach
+    void shutdownAi() throws InterruptedException {
+        kalahAi.shutdown();
+    }
+
+    private static Kalah storedGame() {
+        Kalah game = new Kalah(GAME_ID);
+        game.setVersion(0L);
+        return game;
+    }
+
+    @Test
+    void testMakeAMoveReplacesGame() {
+        when(repositoryMock.replaceIfVersionMatches(any(Kalah.class))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(gameService.makeAMove(GAME_ID, 3))
+                .expectNextMatches(state -> state.getStatus()[2] == 0 && state.getMoveCount() == 1)
+                .verifyComplete();
+    }
+
+    @Test
+    void testMakeAMoveReloadsOnConflict() {
+        when(repositoryMock.replaceIfVersionMatches(any(Kalah.class))).thenReturn(Mono.just(false), Mono.just(true));
+
+        // moving from pit 3 again on the same instance would fail, the retry has to load the game anew
+        StepVerifier.create(gameService.makeAMove(GAME_ID, 3))
+                .expectNextMatches(state -> state.getMoveCount() == 1)
+                .verifyComplete();
+        verify(repositoryMock, times(2)).replaceIfVersionMatches(any(Kalah.class));
+    }
+
+    @Test
+    void testMakeAMoveGivesUpAfterMaxRetries() {
+        when(repositoryMock.replaceIfVersionMatches(any(Kalah.class))).thenReturn(Mono.just(false));
+
+        StepVerifier.create(gameService.makeAMove(GAME_ID, 3))
+                .verifyError(GameConflictException.class);
+        verify(repositoryMock, times(MAX_RETRIES + 1)).replaceIfVersionMatches(any(Kalah.class));
+    }
+
+    @Test
+    void testInvalidMoveFailsTheMono() {
+        StepVerifier.create(gameService.makeAMove(GAME_ID, 20))
+                .verifyError(PitOutOfBoundsException.class);
+        verify(repositoryMock, never()).replaceIfVersionMatches(any(Kalah.class));
+    }
+
+    @Test
+    void testBotRepliesToTheMove() {
+        Kalah game = storedGame();
+        game.setBot(Player.P2);
+        when(repositoryMock.findById(GAME_ID)).thenReturn(Mono.just(game));
+        when(repositoryMock.replaceIfVersionMatches(any(Kalah.class))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(gameService.makeAMove(GAME_ID, 2))
+                .expectNextMatches(state -> state.getWhoseTurn() == Player.P1 && state.getMoveCount() >= 2 && state.getBot() == Player.P2)
+                .verifyComplete();
+    }
+
+    @Test
+    void testMoveOnBotsTurnIsRejected() {
+        Kalah game = storedGame();
+        game.setBot(Player.P1);
+        when(repositoryMock.findById(GAME_ID)).thenReturn(Mono.just(game));
+
+        StepVerifier.create(gameService.makeAMove(GAME_ID, 1))
+                .verifyError(NotYourPitException.class);
+    }
+
+    @Test
+    void testHintSuggestsAPitOfThePlayerToMove() {
+        StepVerifier.create(gameService.getHint(GAME_ID, 3))
+                .expectNextMatches(hint -> hint.getPit() >= 1 && hint.getPit() <= 6 && hint.getDepth() == 3)
+                .verifyComplete();
+    }
+
+    @Test
+    void testMakeAMoveInMissingGame() {
+        when(repositoryMock.findById("missing")).thenReturn(Mono.empty());
+
+        StepVerifier.create(gameService.makeAMove("missing", 3))
+                .verifyError(GameNotFoundException.class);
+    }
+
+    @Test
+    void testCreateGamesInsertsAllGamesAtOnce() {
+        when(repositoryMock.insert(anyList())).then(inv -> Flux.fromIterable(inv.<Iterable<Kalah>>getArgument(0)));
+
+        StepVerifier.create(gameService.createGames(3))
+                .expectNextCount(3)
+                .verifyComplete();
+        verify(repositoryMock, times(1)).insert(anyList());
+    }
+
+    @Test
+    void testCreateGameRejectsUnsupportedVariant() {
+        StepVerifier.create(gameService.createGame(null, 3, 6))
+                .verifyError(InvalidVariantException.class);
+    }
+
+    @Test
+    void testCreateGamesRejectsCountOutOfRange() {
+        StepVerifier.create(gameService.createGames(MAX_BATCH_COUNT + 1))
+                .verifyError(InvalidGameCountException.class);
+    }
+}
@@ -0,0 +1,65 @@
+package com.nikowis.kalah.simulation;
+
+import com.nikowis.kalah.engine.Strategy;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.function.LongFunction;
+
+class SelfPlaySimulatorTest {
+
+    @Test
+    public void testPlaysAllGamesAcrossWorkers() throws InterruptedException {
+        SelfPlaySimulator simulator = new SelfPlaySimulator(Strategies.factory("random"), Strategies.factory("random"), 3, 1);
+
+        SimulationStatistics statistics = simulator.run(1000);
+
+        Assertions.assertEquals(1000, statistics.getGames());
+        Assertions.assertEquals(1000, statistics.getFirstPlayerWins() + statistics.getSecondPlayerWins() + statistics.getDraws());
+        Assertions.assertTrue(statistics.getAverageGameLength() > 10);
+        Assertions.assertTrue(statistics.getExtraTurnRate() > 0 && statistics.getCaptureRate() > 0);
+        Assertions.assertTrue(statistics.getGamesPerSecond() > 0);
+    }
+
+    @Test
+    public void testSameSeedPlaysTheSameGames() throws InterruptedException {
+        SimulationStatistics first = new SelfPlaySimulator(Strategies.factory("random"), Strategies.factory("random"), 2, 7).run(200);
+        SimulationStatistics second = new SelfPlaySimulator(Strategies.factory("random"), Strategies.factory("random"), 2, 7).run(200);
+
+        Assertions.assertEquals(first.getMoves(), second.getMoves());
+        Assertions.assertEquals(first.getFirstPlayerWins(), second.getFirstPlayerWins());
+    }
+
+    @Test
+    public void testStrongerStrategiesWin() throws InterruptedException {
+        SimulationStatistics greedy = new SelfPlaySimulator(Strategies.factory("greedy"), Strategies.factory("random"), 2, 1).run(500);
+        SimulationStatistics search = new SelfPlaySimulator(Strategies.factory("random"), Strategies.factory("alpha-beta:4"), 2, 1).run(50);
+
+        Assertions.assertTrue(greedy.getFirstPlayerWins() > 400, "Greedy should beat random: " + greedy);
+        Assertions.assertTrue(search.getSecondPlayerWins() > 45, "Search should beat random: " + search);
+    }
+
+    @Test
+    public void testStrategiesCannotChangeTheBoard() throws InterruptedException {
+        LongFunction<Strategy> tampering = seed -> {
+            Strategy greedy = new GreedyStrategy();
+            return (board, player) -> {
+                int pit = greedy.choosePit(board, player);
+                Arrays.fill(board, 0);
+                return pit;
+            };
+        };
+
+        SimulationStatistics statistics = new SelfPlaySimulator(tampering, Strategies.factory("random"), 1, 1).run(20);
+
+        Assertions.assertEquals(20, statistics.getGames());
+        Assertions.assertTrue(statistics.getAverageGameLength() > 10);
+    }
+
+    @Test
+    public void testRejectsUnknownStrategy() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Strategies.factory("minimax"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Strategies.factory("mcts"));
+    }
+}
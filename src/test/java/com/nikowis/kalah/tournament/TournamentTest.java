@@ -0,0 +1,153 @@
+package com.nikowis.kalah.tournament;
+
+import com.nikowis.kalah.engine.Strategy;
+import com.nikowis.kalah.model.TournamentResult;
+import com.nikowis.kalah.simulation.Strategies;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class TournamentTest {
+
+    @Test
+    public void testPlaysEveryPairingWithBothColours() throws InterruptedException {
+        List<Entrant> entrants = List.of(entrant("random"), entrant("greedy"), entrant("alpha-beta:2"));
+        Set<Integer> indexes = ConcurrentHashMap.newKeySet();
+        AtomicInteger lastFinished = new AtomicInteger();
+
+        TournamentResult result = new Tournament(entrants, 4, 3, Duration.ofSeconds(10), 1).run((game, finished, total) -> {
+            Assertions.assertEquals(24, total);
+            indexes.add(game.getIndex());
+            lastFinished.accumulateAndGet(finished, Math::max);
+        });
+
+        Assertions.assertEquals(24, indexes.size());
+        Assertions.assertEquals(24, lastFinished.get());
+        Assertions.assertEquals(3, result.getStandings().size());
+        for (TournamentResult.Standing standing : result.getStandings()) {
+            Assertions.assertEquals(16, standing.getWins() + standing.getDraws() + standing.getLosses());
+            Assertions.assertEquals(0, standing.getForfeits());
+        }
+    }
+
+    @Test
+    public void testStrongerStrategiesAreRatedHigher() throws InterruptedException {
+        List<Entrant> entrants = List.of(entrant("random"), entrant("greedy"));
+
+        TournamentResult result = new Tournament(entrants, 50, 2, Duration.ofSeconds(10), 1).run((game, finished, total) -> {
+        });
+
+        TournamentResult.Standing best = result.getStandings().get(0);
+        TournamentResult.Standing worst = result.getStandings().get(1);
+        Assertions.assertEquals("greedy", best.getName());
+        Assertions.assertTrue(best.getRating() > EloRatings.INITIAL_RATING && worst.getRating() < EloRatings.INITIAL_RATING);
+        Assertions.assertEquals(2 * EloRatings.INITIAL_RATING, best.getRating() + worst.getRating(), 1e-6);
+    }
+
+    @Test
+    public void testSlowAndIllegalMovesForfeit() throws InterruptedException {
+        Strategy slow = (board, player) -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Strategies.factory("greedy").apply(0).choosePit(board, player);
+        };
+        Strategy illegal = (board, player) -> -1;
+        List<Entrant> entrants = List.of(new Entrant("slow", seed -> slow), new Entrant("illegal", seed -> illegal), entrant("random"));
+
+        TournamentResult result = new Tournament(entrants, 1, 1, Duration.ofMillis(10), 1).run((game, finished, total) -> {
+        });
+
+        for (TournamentResult.Standing standing : result.getStandings()) {
+            if (standing.getName().equals("random")) {
+                Assertions.assertEquals(4, standing.getWins());
+            } else {
+                Assertions.assertEquals(3, standing.getForfeits(), standing.getName());
+            }
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    public void testMoveThatNeverReturnsForfeits() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        Strategy stuck = (board, player) -> {
+            while (true) {
+                try {
+                    release.await();
+                    return -1;
+                } catch (InterruptedException e) {
+                    // ignores the cancellation like a strategy caught in a tight loop would
+                }
+            }
+        };
+        List<Entrant> entrants = List.of(new Entrant("stuck", seed -> stuck), entrant("random"));
+
+        try {
+            TournamentResult result = new Tournament(entrants, 2, 1, Duration.ofMillis(50), 1).run((game, finished, total) -> {
+            });
+
+            for (TournamentResult.Standing standing : result.getStandings()) {
+                if (standing.getName().equals("random")) {
+                    Assertions.assertEquals(4, standing.getWins());
+                } else {
+                    Assertions.assertEquals(4, standing.getForfeits());
+                }
+            }
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testStrategiesCannotChangeTheBoard() throws InterruptedException {
+        Strategy greedy = Strategies.factory("greedy").apply(0);
+        Strategy tampering = (board, player) -> {
+            int pit = greedy.choosePit(board, player);
+            Arrays.fill(board, 0);
+            return pit;
+        };
+        List<Entrant> entrants = List.of(new Entrant("tampering", seed -> tampering), entrant("random"));
+
+        TournamentResult result = new Tournament(entrants, 2, 1, Duration.ofSeconds(10), 1).run((game, finished, total) -> {
+        });
+
+        for (TournamentResult.Standing standing : result.getStandings()) {
+            Assertions.assertEquals(0, standing.getForfeits(), standing.getName());
+        }
+    }
+
+    @Test
+    public void testEloRatingsFollowResults() {
+        List<GameResult> results = List.of(
+                new GameResult(0, 0, 1, 0, -1, 30),
+                new GameResult(1, 1, 0, -1, -1, 30));
+
+        double[] ratings = EloRatings.of(results, 2);
+
+        Assertions.assertEquals(EloRatings.INITIAL_RATING + 8, ratings[0], 0.5, "Even players exchange half the K factor");
+        Assertions.assertTrue(ratings[0] > EloRatings.INITIAL_RATING + 7, "A draw with a weaker player should cost rating");
+        Assertions.assertTrue(ratings[0] < EloRatings.INITIAL_RATING + 8);
+        Assertions.assertEquals(2 * EloRatings.INITIAL_RATING, ratings[0] + ratings[1], 1e-9);
+    }
+
+    @Test
+    public void testRejectsSingleEntrant() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new Tournament(List.of(entrant("random")), 1, 1, Duration.ofSeconds(1), 1));
+    }
+
+    private static Entrant entrant(String spec) {
+        return new Entrant(spec, Strategies.factory(spec));
+    }
+}